@@ -0,0 +1,63 @@
+#!/usr/bin/env bash
+# Measures time-to-first-successful-request for the default and the optimized (AOT + CDS + lazy init) startup.
+#
+# Usage (from backend/, with Postgres running and the dev datasource reachable):
+#   ./mvnw -Pfast-startup clean package
+#   ./scripts/startup-benchmark.sh [runs]
+set -euo pipefail
+
+RUNS="${1:-5}"
+PORT="${PORT:-8080}"
+JAR_NAME="myperseverance-0.0.1-SNAPSHOT.jar"
+DEFAULT_JAR="target/${JAR_NAME}"
+CDS_DIR="target/cds"
+PROBE_URL="http://localhost:${PORT}/api/auth/check-username?username=startup-probe"
+
+now_ms() {
+  date +%s%3N
+}
+
+# Starts the app with the given arguments and prints the ms until the probe returns 200.
+measure() {
+  local start pid elapsed
+  start=$(now_ms)
+  java "$@" --server.port="${PORT}" > /dev/null 2>&1 &
+  pid=$!
+
+  until curl -sf -o /dev/null "${PROBE_URL}"; do
+    if ! kill -0 "${pid}" 2> /dev/null; then
+      echo "application exited before serving a request" >&2
+      exit 1
+    fi
+    sleep 0.05
+  done
+  elapsed=$(( $(now_ms) - start ))
+
+  kill "${pid}"
+  wait "${pid}" 2> /dev/null || true
+  echo "${elapsed}"
+}
+
+run_mode() {
+  local label="$1"
+  shift
+  local total=0 ms
+  for i in $(seq 1 "${RUNS}"); do
+    ms=$(measure "$@")
+    echo "${label} run ${i}: ${ms} ms"
+    total=$(( total + ms ))
+  done
+  echo "${label} average: $(( total / RUNS )) ms"
+}
+
+if [[ ! -f "${DEFAULT_JAR}" || ! -f "${CDS_DIR}/application.jsa" ]]; then
+  echo "Build first with: ./mvnw -Pfast-startup clean package" >&2
+  exit 1
+fi
+
+run_mode "default" -jar "${DEFAULT_JAR}"
+run_mode "optimized" \
+  -XX:SharedArchiveFile="${CDS_DIR}/application.jsa" \
+  -Dspring.aot.enabled=true \
+  -Dspring.main.lazy-initialization=true \
+  -jar "${CDS_DIR}/${JAR_NAME}"
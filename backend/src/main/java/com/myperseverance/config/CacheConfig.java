@@ -0,0 +1,42 @@
+package com.myperseverance.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    // Keyed by username
+    public static final String USERS = "users";
+
+    // Keyed by username, each entry holds that user's summaries per date range
+    public static final String SUMMARIES = "summaries";
+
+    // Keyed by username, holds the columnar task history behind /api/progress/insights
+    public static final String INSIGHTS = "insights";
+
+    // Keyed by user id, the user's shard placement when sharding is enabled
+    public static final String USER_SHARDS = "userShards";
+
+    // Every cache is bounded; caches not listed here get the default spec
+    @Bean
+    public CacheManager cacheManager(
+            @Value("${cache.default.spec:maximumSize=10000,expireAfterAccess=1h}") String defaultSpec,
+            @Value("${cache.users.spec:maximumSize=10000,expireAfterAccess=1h}") String usersSpec,
+            @Value("${cache.summaries.spec:maximumSize=2000,expireAfterAccess=10m}") String summariesSpec,
+            @Value("${cache.insights.spec:maximumSize=500,expireAfterAccess=30m}") String insightsSpec) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setCacheSpecification(defaultSpec);
+        cacheManager.registerCustomCache(USERS, Caffeine.from(usersSpec).build());
+        cacheManager.registerCustomCache(SUMMARIES, Caffeine.from(summariesSpec).build());
+        // Entries are whole task histories (several MB for very active users), so keep few
+        cacheManager.registerCustomCache(INSIGHTS, Caffeine.from(insightsSpec).build());
+        return cacheManager;
+    }
+}
@@ -1,8 +1,10 @@
 package com.myperseverance.config;
 
 import com.myperseverance.filter.JwtAuthenticationFilter;
+import com.myperseverance.filter.RateLimitFilter;
 import com.myperseverance.service.CustomUserDetailsService;
 import com.myperseverance.util.JwtUtil;
+import com.myperseverance.util.RateLimiter;
 import org.springframework.beans.factory.annotation.Value; // <-- IMPORT THIS
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -26,6 +28,7 @@ public class SecurityConfig {
 
     private final JwtUtil jwtUtil;
     private final CustomUserDetailsService userDetailsService;
+    private final RateLimiter rateLimiter;
 
     // =====================================================================
     // ======================= THE FIX IS HERE (PART 1) ====================
@@ -36,9 +39,13 @@ public class SecurityConfig {
     // =====================================================================
     // =====================================================================
 
-    public SecurityConfig(JwtUtil jwtUtil, CustomUserDetailsService userDetailsService) {
+    @Value("${rate-limit.enabled:true}")
+    private boolean rateLimitEnabled;
+
+    public SecurityConfig(JwtUtil jwtUtil, CustomUserDetailsService userDetailsService, RateLimiter rateLimiter) {
         this.jwtUtil = jwtUtil;
         this.userDetailsService = userDetailsService;
+        this.rateLimiter = rateLimiter;
     }
 
     @Bean
@@ -66,6 +73,11 @@ public class SecurityConfig {
                         UsernamePasswordAuthenticationFilter.class
                 );
 
+        // After the JWT filter so authenticated requests can be limited per user
+        if (rateLimitEnabled) {
+            http.addFilterAfter(new RateLimitFilter(rateLimiter), UsernamePasswordAuthenticationFilter.class);
+        }
+
         return http.build();
     }
 
@@ -0,0 +1,69 @@
+package com.myperseverance.config;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Per-shard datasource, JdbcTemplate and transaction manager, in configuration order (primary first)
+public class ShardRegistry implements AutoCloseable {
+
+    private final Map<String, DataSource> dataSources;
+    private final Map<String, JdbcTemplate> jdbcTemplates = new LinkedHashMap<>();
+    private final Map<String, TransactionTemplate> transactionTemplates = new LinkedHashMap<>();
+
+    public ShardRegistry(Map<String, DataSource> dataSources) {
+        this.dataSources = new LinkedHashMap<>(dataSources);
+        dataSources.forEach((name, dataSource) -> {
+            jdbcTemplates.put(name, new JdbcTemplate(dataSource));
+            transactionTemplates.put(name, new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+        });
+    }
+
+    public List<String> names() {
+        return new ArrayList<>(dataSources.keySet());
+    }
+
+    // Position in the configuration; decides the shard's id range
+    public int indexOf(String shard) {
+        return names().indexOf(shard);
+    }
+
+    public boolean contains(String shard) {
+        return dataSources.containsKey(shard);
+    }
+
+    public DataSource dataSource(String shard) {
+        return require(dataSources, shard);
+    }
+
+    public JdbcTemplate jdbc(String shard) {
+        return require(jdbcTemplates, shard);
+    }
+
+    public TransactionTemplate transactions(String shard) {
+        return require(transactionTemplates, shard);
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (DataSource dataSource : dataSources.values()) {
+            if (dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    private static <T> T require(Map<String, T> map, String shard) {
+        T value = map.get(shard);
+        if (value == null) {
+            throw new IllegalArgumentException("Unknown shard: " + shard);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,102 @@
+package com.myperseverance.config;
+
+import com.myperseverance.model.ProgressTask;
+import com.myperseverance.model.User;
+import com.myperseverance.service.ShardDirectory;
+import com.myperseverance.service.ShardMigrationInProgressException;
+import com.myperseverance.service.ShardMigrationService;
+import com.myperseverance.util.ShardContext;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+
+/**
+ * Routes every ProgressTaskRepository call to the shard of the user it is about, taken from
+ * a User argument or the user of a ProgressTask argument. Runs before the repository's
+ * transaction starts so the connection comes from the right shard. Writes that reach a shard
+ * the user has been frozen on (a placement cached before a migration) surface as
+ * {@link ShardMigrationInProgressException} too.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(name = "sharding.enabled", havingValue = "true")
+public class ShardRoutingAspect {
+
+    private final ShardDirectory directory;
+
+    public ShardRoutingAspect(ShardDirectory directory) {
+        this.directory = directory;
+    }
+
+    @Around("execution(* *(..)) && target(com.myperseverance.repository.ProgressTaskRepository)")
+    public Object route(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (joinPoint.getSignature().getDeclaringType() == Object.class) {
+            return joinPoint.proceed();
+        }
+
+        Long userId = userIdOf(joinPoint.getArgs());
+        if (userId == null) {
+            if (ShardContext.current() != null) {
+                return joinPoint.proceed();
+            }
+            throw new IllegalStateException("Cannot pick a shard for ProgressTaskRepository."
+                    + joinPoint.getSignature().getName() + ": no User or ProgressTask argument");
+        }
+
+        ShardDirectory.Placement placement = directory.placementFor(userId);
+        if (placement.moving() && isWrite(joinPoint.getSignature().getName())) {
+            throw new ShardMigrationInProgressException(userId);
+        }
+
+        String previous = ShardContext.enter(placement.shard());
+        try {
+            return joinPoint.proceed();
+        } catch (RuntimeException e) {
+            if (isFrozen(e)) {
+                throw new ShardMigrationInProgressException(userId);
+            }
+            throw e;
+        } finally {
+            ShardContext.restore(previous);
+        }
+    }
+
+    private Long userIdOf(Object[] args) {
+        for (Object arg : args) {
+            if (arg instanceof User user) {
+                return user.getId();
+            }
+            if (arg instanceof ProgressTask task && task.getUser() != null) {
+                return task.getUser().getId();
+            }
+            if (arg instanceof Iterable<?> items) {
+                for (Object item : items) {
+                    if (item instanceof ProgressTask task && task.getUser() != null) {
+                        return task.getUser().getId();
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private boolean isFrozen(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sql && ShardMigrationService.FROZEN_SQLSTATE.equals(sql.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isWrite(String method) {
+        return method.startsWith("save") || method.startsWith("delete") || method.startsWith("update");
+    }
+}
@@ -0,0 +1,13 @@
+package com.myperseverance.config;
+
+import com.myperseverance.util.ShardContext;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+// Picks the shard from ShardContext when a connection is requested; the primary otherwise
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ShardContext.current();
+    }
+}
@@ -0,0 +1,95 @@
+package com.myperseverance.config;
+
+import com.myperseverance.util.ConsistentHashShardMap;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.jdbc.JdbcConnectionDetails;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Configuration
+@ConditionalOnProperty(name = "sharding.enabled", havingValue = "true")
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardingConfig {
+
+    // Open-in-view binds the request's connection when it starts, before the routing aspect has picked a shard,
+    // so task queries would silently run on whichever database that connection came from.
+    // Without cluster invalidation, cached placements would keep pointing at a user's old shard after a migration.
+    public ShardingConfig(@Value("${spring.jpa.open-in-view:true}") boolean openInView,
+                          @Value("${cache.invalidation.enabled:true}") boolean cacheInvalidation) {
+        if (openInView) {
+            throw new IllegalStateException("sharding.enabled=true requires spring.jpa.open-in-view=false");
+        }
+        if (!cacheInvalidation) {
+            throw new IllegalStateException("sharding.enabled=true requires cache.invalidation.enabled=true");
+        }
+    }
+
+    @Bean
+    public ShardRegistry shardRegistry(DataSourceProperties primary, ShardingProperties sharding) {
+        Map<String, DataSource> dataSources = new LinkedHashMap<>();
+        dataSources.put(ShardingProperties.PRIMARY,
+                primary.initializeDataSourceBuilder().type(HikariDataSource.class).build());
+
+        for (ShardingProperties.Shard shard : sharding.getShards()) {
+            if (dataSources.containsKey(shard.getName())) {
+                throw new IllegalStateException("Duplicate shard name: " + shard.getName());
+            }
+            dataSources.put(shard.getName(), DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(shard.getUrl())
+                    .username(shard.getUsername())
+                    .password(shard.getPassword())
+                    .build());
+        }
+        return new ShardRegistry(dataSources);
+    }
+
+    // The only DataSource bean, so JPA, schema.sql and JdbcTemplate all go through the router
+    @Bean
+    public DataSource dataSource(ShardRegistry registry) {
+        Map<Object, Object> targets = new HashMap<>();
+        for (String shard : registry.names()) {
+            targets.put(shard, registry.dataSource(shard));
+        }
+        ShardRoutingDataSource routing = new ShardRoutingDataSource();
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(registry.dataSource(ShardingProperties.PRIMARY));
+        return routing;
+    }
+
+    // Boot only derives this from spring.datasource.* when it creates the DataSource itself
+    @Bean
+    public JdbcConnectionDetails jdbcConnectionDetails(DataSourceProperties primary) {
+        return new JdbcConnectionDetails() {
+            @Override
+            public String getUsername() {
+                return primary.determineUsername();
+            }
+
+            @Override
+            public String getPassword() {
+                return primary.determinePassword();
+            }
+
+            @Override
+            public String getJdbcUrl() {
+                return primary.determineUrl();
+            }
+        };
+    }
+
+    @Bean
+    public ConsistentHashShardMap shardMap(ShardRegistry registry, ShardingProperties sharding) {
+        return new ConsistentHashShardMap(registry.names(), sharding.getVirtualNodes());
+    }
+}
@@ -0,0 +1,31 @@
+package com.myperseverance.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * sharding.enabled=true spreads progress_tasks over the primary datasource (shard "primary")
+ * and the shards listed here. Shards may only be appended: a shard's position in the list
+ * decides the id range it allocates from.
+ */
+@Data
+@ConfigurationProperties(prefix = "sharding")
+public class ShardingProperties {
+
+    public static final String PRIMARY = "primary";
+
+    private boolean enabled;
+    private int virtualNodes = 128;
+    private List<Shard> shards = new ArrayList<>();
+
+    @Data
+    public static class Shard {
+        private String name;
+        private String url;
+        private String username;
+        private String password;
+    }
+}
@@ -0,0 +1,55 @@
+package com.myperseverance.config;
+
+import com.myperseverance.service.ClusterInvalidationListener;
+import com.myperseverance.service.TombstoneCompactor;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.aot.AotDetector;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.security.web.SecurityFilterChain;
+
+import javax.sql.DataSource;
+
+@Configuration
+public class StartupConfig {
+
+    // Only takes effect with spring.main.lazy-initialization=true.
+    // The datasource, JPA and the security chain stay eager so the first request doesn't pay for them;
+    // startup hooks (shard schema, the checks below) and beans only reached through @Scheduled would otherwise never run.
+    @Bean
+    public static LazyInitializationExcludeFilter criticalBeansExcludeFilter() {
+        return (beanName, beanDefinition, beanType) ->
+                DataSource.class.isAssignableFrom(beanType)
+                        || EntityManagerFactory.class.isAssignableFrom(beanType)
+                        || SecurityFilterChain.class.isAssignableFrom(beanType)
+                        || SmartInitializingSingleton.class.isAssignableFrom(beanType)
+                        || TombstoneCompactor.class.isAssignableFrom(beanType);
+    }
+
+    // The fast-startup (AOT) build evaluates @ConditionalOnProperty when the jar is built,
+    // so refuse to start if these switches differ at runtime instead of silently ignoring them
+    @Bean
+    public SmartInitializingSingleton buildTimeConditionsCheck(Environment environment, ListableBeanFactory beans) {
+        return () -> {
+            if (!AotDetector.useGeneratedArtifacts()) {
+                return;
+            }
+            requireBuiltWith(environment, beans, "sharding.enabled", false, ShardRegistry.class);
+            requireBuiltWith(environment, beans, "cache.invalidation.enabled", true, ClusterInvalidationListener.class);
+        };
+    }
+
+    private static void requireBuiltWith(Environment environment, ListableBeanFactory beans,
+                                         String property, boolean defaultValue, Class<?> beanType) {
+        boolean enabled = environment.getProperty(property, Boolean.class, defaultValue);
+        boolean built = beans.getBeanNamesForType(beanType, false, false).length > 0;
+        if (enabled != built) {
+            throw new IllegalStateException(property + "=" + enabled + " but this AOT build was made with "
+                    + property + "=" + built + "; rebuild with -Pfast-startup using the runtime value");
+        }
+    }
+}
@@ -1,34 +1,77 @@
 package com.myperseverance.controller;
 
+import com.myperseverance.config.CacheConfig;
+import com.myperseverance.dto.CompactProgressSummaryDTO;
+import com.myperseverance.dto.HabitInsightsDTO;
 import com.myperseverance.dto.ProgressSummaryDTO;
 import com.myperseverance.dto.ProgressTaskDTO;
+import com.myperseverance.dto.TaskChangesResponse;
+import com.myperseverance.dto.TaskSearchResponse;
 import com.myperseverance.model.ProgressTask;
 import com.myperseverance.model.User;
 import com.myperseverance.repository.ProgressTaskRepository;
+import com.myperseverance.service.ClusterCacheInvalidator;
+import com.myperseverance.service.HabitInsightsService;
+import com.myperseverance.service.ProgressSummaryService;
+import com.myperseverance.service.TaskCompletionBuffer;
+import com.myperseverance.service.TaskSearchService;
+import com.myperseverance.service.TaskSyncService;
 import com.myperseverance.service.UserService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.Objects;
 
 @RestController
 @RequestMapping("/api/progress")
 @RequiredArgsConstructor
 public class ProgressTaskController {
 
+    public static final String COMPACT_SUMMARY_JSON = "application/vnd.myperseverance.summary-compact+json";
+    public static final String COMPACT_SUMMARY_CBOR = "application/cbor";
+
     private final ProgressTaskRepository taskRepo;
     private final UserService userService;
+    private final ProgressSummaryService summaryService;
+    private final ClusterCacheInvalidator cacheInvalidator;
+    private final TaskCompletionBuffer completionBuffer;
+    private final TaskSearchService searchService;
+    private final HabitInsightsService insightsService;
+    private final TaskSyncService syncService;
 
     // Get tasks for user and optional date (default to today if date not provided)
     @GetMapping("/tasks")
     public List<ProgressTask> getTasksForDate(@RequestParam(required = false) String date) {
         User user = userService.getCurrentUser();
         LocalDate targetDate = (date == null) ? LocalDate.now() : LocalDate.parse(date);
-        return taskRepo.findByUserAndDate(user, targetDate);
+        List<ProgressTask> tasks = taskRepo.findByUserAndDate(user, targetDate);
+        tasks.forEach(completionBuffer::applyPending);
+        return tasks;
+    }
+
+    // Full-text search over the user's task titles and descriptions, best matches first
+    @GetMapping("/tasks/search")
+    public TaskSearchResponse searchTasks(
+            @RequestParam String q,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        User user = userService.getCurrentUser();
+        return searchService.search(user, q,
+                from != null ? LocalDate.parse(from) : null,
+                to != null ? LocalDate.parse(to) : null,
+                page, size);
+    }
+
+    // Tasks changed and deleted after the given version, oldest change first
+    @GetMapping("/changes")
+    public TaskChangesResponse getChanges(
+            @RequestParam(defaultValue = "0") long since,
+            @RequestParam(defaultValue = "100") int limit) {
+        return syncService.changesSince(userService.getCurrentUser(), since, limit);
     }
 
     // Create a new task
@@ -42,53 +85,79 @@ public class ProgressTaskController {
                 .date(dto.getDate() != null ? dto.getDate() : LocalDate.now())
                 .user(user)
                 .build();
-        return taskRepo.save(task);
+        ProgressTask saved = taskRepo.save(task);
+        cacheInvalidator.invalidate(CacheConfig.SUMMARIES, user.getUsername());
+        insightsService.onTaskSaved(user, saved);
+        return saved;
     }
 
     @PutMapping("/tasks/{id}")
     public ProgressTask updateTask(@PathVariable Long id, @RequestBody ProgressTaskDTO dto) {
-        ProgressTask task = taskRepo.findById(id)
+        User user = userService.getCurrentUser();
+        ProgressTask task = taskRepo.findByIdAndUser(id, user)
                 .orElseThrow(() -> new RuntimeException("Task not found"));
+        LocalDate newDate = dto.getDate() != null ? dto.getDate() : task.getDate();
+
+        // A plain completion toggle is buffered and written in the next batch
+        if (completionBuffer.isEnabled()
+                && Objects.equals(task.getTitle(), dto.getTitle())
+                && Objects.equals(task.getDescription(), dto.getDescription())
+                && Objects.equals(task.getDate(), newDate)) {
+            completionBuffer.record(task.getId(), user, dto.isCompleted());
+            insightsService.onCompletionChanged(user, task.getId(), dto.isCompleted());
+            task.setCompleted(dto.isCompleted());
+            return task;
+        }
 
+        completionBuffer.discard(task.getId());
         task.setTitle(dto.getTitle());
         task.setDescription(dto.getDescription());
         task.setCompleted(dto.isCompleted());
-        task.setDate(dto.getDate() != null ? dto.getDate() : task.getDate());
+        task.setDate(newDate);
 
-        return taskRepo.save(task);
+        ProgressTask saved = taskRepo.save(task);
+        cacheInvalidator.invalidate(CacheConfig.SUMMARIES, user.getUsername());
+        insightsService.onTaskSaved(user, saved);
+        return saved;
     }
 
     // Delete a task
     @DeleteMapping("/tasks/{id}")
     public void deleteTask(@PathVariable Long id) {
-        taskRepo.deleteById(id);
+        User user = userService.getCurrentUser();
+        completionBuffer.discard(id);
+        taskRepo.deleteByIdAndUser(id, user);
+        cacheInvalidator.invalidate(CacheConfig.SUMMARIES, user.getUsername());
+        insightsService.onTaskDeleted(user, id);
     }
 
     @GetMapping("/summary")
     public List<ProgressSummaryDTO> getProgressSummary(
             @RequestParam(required = false) String startDate,
             @RequestParam(required = false) String endDate) {
-        User user = userService.getCurrentUser();
-
-        LocalDate start = (startDate != null) ? LocalDate.parse(startDate) : LocalDate.now().minusYears(1);
-        LocalDate end = (endDate != null) ? LocalDate.parse(endDate) : LocalDate.now();
+        return buildSummary(startDate, endDate);
+    }
 
-        List<ProgressTask> tasks = taskRepo.findByUserAndDateBetween(user, start, end);
+    // Same data as /summary in parallel arrays, selected by Accept (vendor JSON type or CBOR)
+    @GetMapping(value = "/summary", produces = {COMPACT_SUMMARY_JSON, COMPACT_SUMMARY_CBOR})
+    public CompactProgressSummaryDTO getCompactProgressSummary(
+            @RequestParam(required = false) String startDate,
+            @RequestParam(required = false) String endDate) {
+        return CompactProgressSummaryDTO.from(buildSummary(startDate, endDate));
+    }
 
-        Map<LocalDate, ProgressSummaryDTO> summaryMap = new HashMap<>();
+    // Completion rates by weekday and by habit title, plus rolling-window trends
+    @GetMapping("/insights")
+    public HabitInsightsDTO getInsights() {
+        return insightsService.getInsights(userService.getCurrentUser());
+    }
 
-        for (ProgressTask task : tasks) {
-            LocalDate date = task.getDate();
-            summaryMap.putIfAbsent(date, new ProgressSummaryDTO(date, 0, 0, new ArrayList<>()));
+    private List<ProgressSummaryDTO> buildSummary(String startDate, String endDate) {
+        User user = userService.getCurrentUser();
 
-            ProgressSummaryDTO summary = summaryMap.get(date);
-            summary.incrementTotal();
-            if (task.isCompleted()) {
-                summary.incrementCompleted();
-                summary.addTaskTitle(task.getTitle());
-            }
-        }
+        LocalDate start = (startDate != null) ? LocalDate.parse(startDate) : LocalDate.now().minusYears(1);
+        LocalDate end = (endDate != null) ? LocalDate.parse(endDate) : LocalDate.now();
 
-        return new ArrayList<>(summaryMap.values());
+        return summaryService.summarize(user, start, end);
     }
 }
@@ -0,0 +1,70 @@
+package com.myperseverance.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Columnar form of a list of {@link ProgressSummaryDTO}, sorted by date.
+ * Index i of epochDays, totalTasks and completedTasks describes one day.
+ * The completed titles of day i are titles[titleIds[titleOffsets[i]] .. titleIds[titleOffsets[i + 1] - 1]].
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CompactProgressSummaryDTO {
+    private long[] epochDays;
+    private int[] totalTasks;
+    private int[] completedTasks;
+    private List<String> titles;
+    private int[] titleOffsets;
+    private int[] titleIds;
+
+    public static CompactProgressSummaryDTO from(List<ProgressSummaryDTO> summaries) {
+        List<ProgressSummaryDTO> sorted = new ArrayList<>(summaries);
+        sorted.sort(Comparator.comparing(ProgressSummaryDTO::getDate));
+
+        int days = sorted.size();
+        long[] epochDays = new long[days];
+        int[] totalTasks = new int[days];
+        int[] completedTasks = new int[days];
+        int[] titleOffsets = new int[days + 1];
+
+        int titleCount = 0;
+        for (ProgressSummaryDTO summary : sorted) {
+            titleCount += summary.getTaskTitles().size();
+        }
+        int[] titleIds = new int[titleCount];
+
+        List<String> titles = new ArrayList<>();
+        Map<String, Integer> titleIndex = new HashMap<>();
+        int position = 0;
+
+        for (int i = 0; i < days; i++) {
+            ProgressSummaryDTO summary = sorted.get(i);
+            epochDays[i] = summary.getDate().toEpochDay();
+            totalTasks[i] = summary.getTotalTasks();
+            completedTasks[i] = summary.getCompletedTasks();
+            titleOffsets[i] = position;
+
+            for (String title : summary.getTaskTitles()) {
+                Integer id = titleIndex.get(title);
+                if (id == null) {
+                    id = titles.size();
+                    titles.add(title);
+                    titleIndex.put(title, id);
+                }
+                titleIds[position++] = id;
+            }
+        }
+        titleOffsets[days] = position;
+
+        return new CompactProgressSummaryDTO(epochDays, totalTasks, completedTasks, titles, titleOffsets, titleIds);
+    }
+}
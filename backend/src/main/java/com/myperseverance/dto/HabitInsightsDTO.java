@@ -0,0 +1,46 @@
+package com.myperseverance.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.DayOfWeek;
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class HabitInsightsDTO {
+    private int totalTasks;
+    private int completedTasks;
+    private List<WeekdayRate> byWeekday;
+    private List<TitleRate> byTitle;
+    private List<WindowTrend> trends;
+
+    @Getter
+    @AllArgsConstructor
+    public static class WeekdayRate {
+        private DayOfWeek dayOfWeek;
+        private int total;
+        private int completed;
+        private double completionRate;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class TitleRate {
+        private String title;
+        private int total;
+        private int completed;
+        private double completionRate;
+    }
+
+    // Completion rate over the last `days` days compared with the `days` before that
+    @Getter
+    @AllArgsConstructor
+    public static class WindowTrend {
+        private int days;
+        private int total;
+        private int completed;
+        private double completionRate;
+        private double previousCompletionRate;
+    }
+}
@@ -0,0 +1,19 @@
+package com.myperseverance.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskChangeDTO {
+    private Long id;
+    private String title;
+    private String description;
+    private boolean completed;
+    private LocalDate date;
+    private long version;
+}
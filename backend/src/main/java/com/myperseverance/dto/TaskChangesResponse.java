@@ -0,0 +1,18 @@
+package com.myperseverance.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class TaskChangesResponse {
+    private List<TaskChangeDTO> changed;
+    private List<TaskTombstoneDTO> deleted;
+    // Pass as ?since= on the next call
+    private long nextSince;
+    private boolean hasMore;
+    // Deletions after the client's version were compacted away; drop local state and sync from 0
+    private boolean resetRequired;
+}
@@ -0,0 +1,15 @@
+package com.myperseverance.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class TaskSearchResponse {
+    private List<TaskSearchResultDTO> results;
+    private int page;
+    private int size;
+    private boolean hasNext;
+}
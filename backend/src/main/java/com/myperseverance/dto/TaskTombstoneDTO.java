@@ -0,0 +1,13 @@
+package com.myperseverance.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskTombstoneDTO {
+    private Long id;
+    private long version;
+}
@@ -0,0 +1,79 @@
+package com.myperseverance.filter;
+
+import com.myperseverance.util.RateLimiter;
+import com.myperseverance.util.RateLimiter.EndpointClass;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.NonNull;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+// Runs after JwtAuthenticationFilter: authenticated requests are limited per user, auth endpoints per client IP.
+// The client IP is the one resolved from X-Forwarded-For by trusted proxies (server.forward-headers-strategy).
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final RateLimiter rateLimiter;
+
+    public RateLimitFilter(RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+
+        if ("OPTIONS".equals(request.getMethod())) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String path = request.getRequestURI();
+        EndpointClass endpointClass = classify(path);
+
+        String key;
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (endpointClass != EndpointClass.AUTH && endpointClass != EndpointClass.AUTH_PROBE
+                && auth != null && auth.isAuthenticated()
+                && !(auth instanceof AnonymousAuthenticationToken)) {
+            key = "user:" + auth.getName();
+        } else {
+            key = "ip:" + request.getRemoteAddr();
+        }
+
+        long waitMs = rateLimiter.tryAcquire(endpointClass, key);
+        if (waitMs > 0) {
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, (waitMs + 999) / 1000)));
+            response.setContentType("text/plain");
+            response.getWriter().write("Too many requests");
+            return;
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    private EndpointClass classify(String path) {
+        if (path.startsWith("/api/auth/refresh") || path.startsWith("/api/auth/check-")
+                || path.startsWith("/api/auth/signout")) {
+            return EndpointClass.AUTH_PROBE;
+        }
+        if (path.startsWith("/api/auth/")) {
+            return EndpointClass.AUTH;
+        }
+        if (path.startsWith("/api/progress/summary") || path.startsWith("/api/progress/insights")) {
+            return EndpointClass.SUMMARY;
+        }
+        return EndpointClass.DEFAULT;
+    }
+}
@@ -4,7 +4,9 @@ import jakarta.persistence.*;
 import lombok.*;
 import java.time.LocalDate;
 
-import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.hibernate.annotations.Generated;
+import org.hibernate.generator.EventType;
 
 @Entity
 @Table(name = "progress_tasks", uniqueConstraints = {
@@ -27,8 +29,14 @@ public class ProgressTask {
 
     private LocalDate date;
 
+    // Set by the progress_tasks_track_change trigger (schema.sql) on every insert and update
+    @Generated(event = {EventType.INSERT, EventType.UPDATE})
+    @Column(name = "change_version")
+    private Long changeVersion;
+
+    // Never serialized: it would load the lazy proxy for every task and expose the owner's credentials
     @ManyToOne(fetch = FetchType.LAZY)
-    @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+    @JsonIgnore
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 }
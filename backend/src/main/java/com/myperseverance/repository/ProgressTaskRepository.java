@@ -2,19 +2,67 @@ package com.myperseverance.repository;
 
 import com.myperseverance.model.ProgressTask;
 import com.myperseverance.model.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
+// Every method takes the user (or a task carrying it) so calls can be routed to the user's shard
 public interface ProgressTaskRepository extends JpaRepository<ProgressTask, Long> {
+    Optional<ProgressTask> findByIdAndUser(Long id, User user);
     List<ProgressTask> findByUserAndDate(User user, LocalDate date);
     List<ProgressTask> findByUser(User user);
 
     @Query("SELECT t.date, COUNT(t) FROM ProgressTask t WHERE t.user = :user AND t.completed = true GROUP BY t.date")
     List<Object[]> countCompletedTasksPerDay(User user);
+
+    // id, date, title, completed for the insights column store, in id order
+    @Query("SELECT t.id, t.date, t.title, t.completed FROM ProgressTask t WHERE t.user = :user ORDER BY t.id")
+    List<Object[]> findInsightRowsByUser(User user);
     List<ProgressTask> findByUserAndDateBetween(User user, LocalDate start, LocalDate end);
 
+    @Transactional
+    @Modifying
+    @Query("UPDATE ProgressTask t SET t.completed = :completed WHERE t.user = :user AND t.id IN :ids")
+    int updateCompleted(User user, Collection<Long> ids, boolean completed);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM ProgressTask t WHERE t.id = :id AND t.user = :user")
+    int deleteByIdAndUser(Long id, User user);
+
+    // Ranked full-text search backed by the search_vector GIN index (see schema.sql)
+    @Query(value = "SELECT t.* FROM progress_tasks t, to_tsquery('simple', :query) q " +
+            "WHERE t.user_id = :#{#user.id} AND t.search_vector @@ q AND t.date BETWEEN :from AND :to " +
+            "ORDER BY ts_rank(t.search_vector, q) DESC, t.date DESC, t.id DESC",
+            nativeQuery = true)
+    Slice<ProgressTask> search(User user, String query, LocalDate from, LocalDate to, Pageable pageable);
+
+    /**
+     * Delta sync: rows and tombstones carry a per-user change version (see schema.sql). One statement,
+     * so both streams and the compaction point come from the same snapshot. Columns: kind ('T' task,
+     * 'D' tombstone), id, title, description, completed, date, change_version, compacted_version.
+     * There is always at least one row; kind is null on it when nothing changed.
+     */
+    @Query(value = "SELECT c.kind, c.id, c.title, c.description, c.completed, c.date, c.change_version, " +
+            "COALESCE((SELECT v.compacted_version FROM sync_versions v WHERE v.user_id = :#{#user.id}), 0) " +
+            "FROM (SELECT 1) AS one LEFT JOIN (" +
+            "(SELECT 'T' AS kind, t.id, t.title, t.description, t.completed, t.date, t.change_version " +
+            "FROM progress_tasks t WHERE t.user_id = :#{#user.id} AND t.change_version > :since " +
+            "ORDER BY t.change_version LIMIT :limit) " +
+            "UNION ALL " +
+            "(SELECT 'D', d.task_id, NULL, NULL, NULL, NULL, d.change_version " +
+            "FROM progress_task_tombstones d WHERE d.user_id = :#{#user.id} AND d.change_version > :since " +
+            "ORDER BY d.change_version LIMIT :limit)" +
+            ") AS c ON TRUE ORDER BY c.change_version LIMIT :limit",
+            nativeQuery = true)
+    List<Object[]> findChangesSince(User user, long since, int limit);
 
 }
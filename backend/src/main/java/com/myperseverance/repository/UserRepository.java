@@ -1,7 +1,9 @@
 package com.myperseverance.repository;
 
+import com.myperseverance.config.CacheConfig;
 import com.myperseverance.model.User;
 
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import java.util.Optional;
@@ -9,6 +11,7 @@ import java.util.Optional;
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
 
+    @Cacheable(cacheNames = CacheConfig.USERS, key = "#p0")
     Optional<User> findByUsername(String username);
     boolean existsByEmail(String email);
     boolean existsByUsername(String username);
@@ -0,0 +1,95 @@
+package com.myperseverance.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.UUID;
+
+/**
+ * Evicts cache entries on this node and tells the other nodes to do the same
+ * through Postgres NOTIFY. Payload format: "nodeId|cacheName|key".
+ */
+@Slf4j
+@Service
+public class ClusterCacheInvalidator {
+
+    public static final String CHANNEL = "cache_invalidation";
+
+    private static final String SEPARATOR = "|";
+
+    private final CacheManager cacheManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final String nodeId = UUID.randomUUID().toString().substring(0, 8);
+
+    public ClusterCacheInvalidator(CacheManager cacheManager, JdbcTemplate jdbcTemplate) {
+        this.cacheManager = cacheManager;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Evicts locally now and notifies the cluster once the surrounding transaction (if any) commits
+    public void invalidate(String cacheName, String key) {
+        evictLocal(cacheName, key);
+        invalidateRemote(cacheName, key);
+    }
+
+    // For entries this node has already updated in place: only the other nodes evict
+    public void invalidateRemote(String cacheName, String key) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(cacheName, key);
+                }
+            });
+        } else {
+            publish(cacheName, key);
+        }
+    }
+
+    // Called by the listener for every notification received
+    public void onMessage(String payload) {
+        String[] parts = payload.split("\\" + SEPARATOR, 3);
+        if (parts.length != 3) {
+            log.warn("Ignoring malformed cache invalidation message: {}", payload);
+            return;
+        }
+        if (nodeId.equals(parts[0])) {
+            return; // already evicted locally
+        }
+        evictLocal(parts[1], parts[2]);
+    }
+
+    // Fallback when notifications may have been missed (e.g. while the listener was reconnecting)
+    public void flushAll() {
+        for (String name : cacheManager.getCacheNames()) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null) {
+                cache.clear();
+            }
+        }
+        log.info("Flushed all local caches");
+    }
+
+    // Every cache is keyed so that one key covers everything to evict (e.g. all of a user's summaries)
+    void evictLocal(String cacheName, String key) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.evict(key);
+        }
+    }
+
+    private void publish(String cacheName, String key) {
+        String payload = String.join(SEPARATOR, nodeId, cacheName, key);
+        try {
+            jdbcTemplate.queryForObject("SELECT pg_notify(?, ?)", Object.class, CHANNEL, payload);
+        } catch (Exception e) {
+            // The write has already committed, so log instead of failing the request
+            log.warn("Failed to publish cache invalidation {}", payload, e);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.myperseverance.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.JdbcConnectionDetails;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Holds a dedicated (non-pooled) connection that LISTENs on the invalidation channel
+ * and hands every notification to {@link ClusterCacheInvalidator}.
+ * All local caches are flushed when the connection is lost and again after each (re)connect,
+ * since notifications sent while disconnected are lost.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "cache.invalidation.enabled", havingValue = "true", matchIfMissing = true)
+public class ClusterInvalidationListener implements SmartLifecycle {
+
+    private static final int POLL_TIMEOUT_MS = 1000;
+    private static final int IDLE_POLLS_BEFORE_PING = 10;
+    private static final long MIN_BACKOFF_MS = 500;
+    private static final long MAX_BACKOFF_MS = 30_000;
+
+    private final JdbcConnectionDetails connectionDetails;
+    private final ClusterCacheInvalidator invalidator;
+
+    private volatile boolean running;
+    private volatile boolean listening;
+    private Thread worker;
+
+    public ClusterInvalidationListener(JdbcConnectionDetails connectionDetails, ClusterCacheInvalidator invalidator) {
+        this.connectionDetails = connectionDetails;
+        this.invalidator = invalidator;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        worker = new Thread(this::run, "cache-invalidation-listener");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+            try {
+                worker.join(POLL_TIMEOUT_MS * 2L);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // True once LISTEN has been issued on the current connection
+    public boolean isListening() {
+        return listening;
+    }
+
+    private void run() {
+        long backoff = MIN_BACKOFF_MS;
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(
+                    connectionDetails.getJdbcUrl(), connectionDetails.getUsername(), connectionDetails.getPassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + ClusterCacheInvalidator.CHANNEL);
+                }
+                listening = true;
+                invalidator.flushAll();
+                backoff = MIN_BACKOFF_MS;
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                int idlePolls = 0;
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MS);
+                    if (notifications == null || notifications.length == 0) {
+                        // A silently dropped connection only surfaces once we send something
+                        if (++idlePolls >= IDLE_POLLS_BEFORE_PING) {
+                            idlePolls = 0;
+                            try (Statement statement = connection.createStatement()) {
+                                statement.execute("SELECT 1");
+                            }
+                        }
+                        continue;
+                    }
+                    idlePolls = 0;
+                    for (PGNotification notification : notifications) {
+                        invalidator.onMessage(notification.getParameter());
+                    }
+                }
+            } catch (SQLException e) {
+                if (running) {
+                    log.warn("Cache invalidation listener lost its connection, retrying in {} ms", backoff, e);
+                }
+            } finally {
+                if (listening) {
+                    listening = false;
+                    invalidator.flushAll();
+                }
+            }
+            if (!running) {
+                break;
+            }
+
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            backoff = Math.min(backoff * 2, MAX_BACKOFF_MS);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.myperseverance.service;
+
+import com.myperseverance.config.CacheConfig;
+import com.myperseverance.dto.HabitInsightsDTO;
+import com.myperseverance.model.ProgressTask;
+import com.myperseverance.model.User;
+import com.myperseverance.repository.ProgressTaskRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Per-habit analytics. Each user's history is loaded once into {@link UserTaskColumns}
+ * (cached in {@link CacheConfig#INSIGHTS}), kept up to date in place as tasks change,
+ * and aggregated with {@link InsightsAggregator}. The result is reused until the
+ * columns change or the day rolls over.
+ * <p>
+ * A write that finds no cached columns evicts the key anyway: if a load is running, the eviction
+ * waits for it (Caffeine blocks writes to a key being computed) and drops a result whose query
+ * may have missed the write.
+ */
+@Service
+@RequiredArgsConstructor
+public class HabitInsightsService {
+
+    private final ProgressTaskRepository taskRepo;
+    private final CacheManager cacheManager;
+    private final ClusterCacheInvalidator cacheInvalidator;
+    private final TaskCompletionBuffer completionBuffer;
+
+    private static final class UserInsights {
+        private final UserTaskColumns columns = new UserTaskColumns();
+        private HabitInsightsDTO snapshot;
+        private long snapshotVersion = -1;
+        private long snapshotDay;
+    }
+
+    public HabitInsightsDTO getInsights(User user) {
+        UserInsights insights = cache().get(user.getUsername(), () -> load(user));
+        long today = LocalDate.now().toEpochDay();
+
+        synchronized (insights.columns) {
+            if (insights.snapshotVersion != insights.columns.version() || insights.snapshotDay != today) {
+                InsightsAggregator.Totals totals = InsightsAggregator.aggregate(insights.columns, today);
+                insights.snapshot = toDto(totals, insights.columns.titles());
+                insights.snapshotVersion = insights.columns.version();
+                insights.snapshotDay = today;
+            }
+            return insights.snapshot;
+        }
+    }
+
+    public void onTaskSaved(User user, ProgressTask task) {
+        UserInsights insights = loaded(user);
+        if (insights != null) {
+            synchronized (insights.columns) {
+                insights.columns.upsert(task.getId(), task.getDate().toEpochDay(), task.getTitle(), task.isCompleted());
+            }
+        } else {
+            evictLoadInProgress(user);
+        }
+        cacheInvalidator.invalidateRemote(CacheConfig.INSIGHTS, user.getUsername());
+    }
+
+    // Buffered toggles are only published to other nodes when the buffer flushes
+    public void onCompletionChanged(User user, Long taskId, boolean completed) {
+        UserInsights insights = loaded(user);
+        if (insights != null) {
+            synchronized (insights.columns) {
+                insights.columns.setCompleted(taskId, completed);
+            }
+        } else {
+            evictLoadInProgress(user);
+        }
+    }
+
+    public void onTaskDeleted(User user, Long taskId) {
+        UserInsights insights = loaded(user);
+        if (insights != null) {
+            synchronized (insights.columns) {
+                insights.columns.remove(taskId);
+            }
+        } else {
+            evictLoadInProgress(user);
+        }
+        cacheInvalidator.invalidateRemote(CacheConfig.INSIGHTS, user.getUsername());
+    }
+
+    private UserInsights load(User user) {
+        UserInsights insights = new UserInsights();
+        for (Object[] row : taskRepo.findInsightRowsByUser(user)) {
+            Long taskId = (Long) row[0];
+            LocalDate date = (LocalDate) row[1];
+            Boolean pending = completionBuffer.pendingCompleted(taskId);
+            boolean completed = pending != null ? pending : (Boolean) row[3];
+            insights.columns.upsert(taskId, date.toEpochDay(), (String) row[2], completed);
+        }
+        return insights;
+    }
+
+    private UserInsights loaded(User user) {
+        return cache().get(user.getUsername(), UserInsights.class);
+    }
+
+    // No-op unless a load for the user is running, in which case it waits for and discards its result
+    private void evictLoadInProgress(User user) {
+        cache().evict(user.getUsername());
+    }
+
+    private Cache cache() {
+        Cache cache = cacheManager.getCache(CacheConfig.INSIGHTS);
+        if (cache == null) {
+            throw new IllegalStateException("Cache not configured: " + CacheConfig.INSIGHTS);
+        }
+        return cache;
+    }
+
+    static HabitInsightsDTO toDto(InsightsAggregator.Totals totals, List<String> titles) {
+        int total = 0;
+        int completed = 0;
+
+        List<HabitInsightsDTO.WeekdayRate> byWeekday = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            total += totals.weekdayTotal[i];
+            completed += totals.weekdayCompleted[i];
+            byWeekday.add(new HabitInsightsDTO.WeekdayRate(DayOfWeek.of(i + 1),
+                    totals.weekdayTotal[i], totals.weekdayCompleted[i],
+                    rate(totals.weekdayCompleted[i], totals.weekdayTotal[i])));
+        }
+
+        List<HabitInsightsDTO.TitleRate> byTitle = new ArrayList<>();
+        for (int id = 0; id < totals.titleTotal.length; id++) {
+            if (totals.titleTotal[id] > 0) {
+                byTitle.add(new HabitInsightsDTO.TitleRate(titles.get(id),
+                        totals.titleTotal[id], totals.titleCompleted[id],
+                        rate(totals.titleCompleted[id], totals.titleTotal[id])));
+            }
+        }
+        byTitle.sort(Comparator.comparingInt(HabitInsightsDTO.TitleRate::getTotal).reversed());
+
+        List<HabitInsightsDTO.WindowTrend> trends = new ArrayList<>();
+        for (int w = 0; w < InsightsAggregator.WINDOWS.length; w++) {
+            trends.add(new HabitInsightsDTO.WindowTrend(InsightsAggregator.WINDOWS[w],
+                    totals.windowTotal[2 * w], totals.windowCompleted[2 * w],
+                    rate(totals.windowCompleted[2 * w], totals.windowTotal[2 * w]),
+                    rate(totals.windowCompleted[2 * w + 1], totals.windowTotal[2 * w + 1])));
+        }
+
+        return new HabitInsightsDTO(total, completed, byWeekday, byTitle, trends);
+    }
+
+    private static double rate(int completed, int total) {
+        return total == 0 ? 0 : (double) completed / total;
+    }
+}
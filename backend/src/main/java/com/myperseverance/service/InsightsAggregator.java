@@ -0,0 +1,125 @@
+package com.myperseverance.service;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Fork-join reduction over {@link UserTaskColumns}: each leaf counts a row range
+ * into primitive arrays and the partial results are summed.
+ */
+final class InsightsAggregator {
+
+    // Rolling windows in days; each is compared with the window right before it
+    static final int[] WINDOWS = {7, 30, 90, 365};
+
+    private static final int SEQUENTIAL_THRESHOLD = 16_384;
+
+    private InsightsAggregator() {
+    }
+
+    static final class Totals {
+        // Index 0 = Monday
+        final int[] weekdayTotal = new int[7];
+        final int[] weekdayCompleted = new int[7];
+        final int[] titleTotal;
+        final int[] titleCompleted;
+        // Index 2w = current window w, 2w + 1 = the window before it
+        final int[] windowTotal = new int[WINDOWS.length * 2];
+        final int[] windowCompleted = new int[WINDOWS.length * 2];
+
+        Totals(int titleCount) {
+            titleTotal = new int[titleCount];
+            titleCompleted = new int[titleCount];
+        }
+
+        void add(Totals other) {
+            sum(weekdayTotal, other.weekdayTotal);
+            sum(weekdayCompleted, other.weekdayCompleted);
+            sum(titleTotal, other.titleTotal);
+            sum(titleCompleted, other.titleCompleted);
+            sum(windowTotal, other.windowTotal);
+            sum(windowCompleted, other.windowCompleted);
+        }
+
+        private static void sum(int[] into, int[] from) {
+            for (int i = 0; i < into.length; i++) {
+                into[i] += from[i];
+            }
+        }
+    }
+
+    static Totals aggregate(UserTaskColumns columns, long today) {
+        return ForkJoinPool.commonPool().invoke(
+                new RangeTask(columns, columns.titles().size(), today, 0, columns.size()));
+    }
+
+    static Totals aggregateSequential(UserTaskColumns columns, long today) {
+        Totals totals = new Totals(columns.titles().size());
+        accumulate(columns, today, 0, columns.size(), totals);
+        return totals;
+    }
+
+    private static void accumulate(UserTaskColumns columns, long today, int from, int to, Totals totals) {
+        for (int row = from; row < to; row++) {
+            int epochDay = columns.epochDay(row);
+            int titleId = columns.titleId(row);
+            int done = columns.isCompleted(row) ? 1 : 0;
+
+            // 1970-01-01 was a Thursday
+            int weekday = Math.floorMod(epochDay + 3, 7);
+            totals.weekdayTotal[weekday]++;
+            totals.weekdayCompleted[weekday] += done;
+            totals.titleTotal[titleId]++;
+            totals.titleCompleted[titleId] += done;
+
+            long age = today - epochDay;
+            if (age < 0) {
+                continue;
+            }
+            for (int w = 0; w < WINDOWS.length; w++) {
+                int slot;
+                if (age < WINDOWS[w]) {
+                    slot = 2 * w;
+                } else if (age < 2L * WINDOWS[w]) {
+                    slot = 2 * w + 1;
+                } else {
+                    continue;
+                }
+                totals.windowTotal[slot]++;
+                totals.windowCompleted[slot] += done;
+            }
+        }
+    }
+
+    private static final class RangeTask extends RecursiveTask<Totals> {
+        private final UserTaskColumns columns;
+        private final int titleCount;
+        private final long today;
+        private final int from;
+        private final int to;
+
+        RangeTask(UserTaskColumns columns, int titleCount, long today, int from, int to) {
+            this.columns = columns;
+            this.titleCount = titleCount;
+            this.today = today;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Totals compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                Totals totals = new Totals(titleCount);
+                accumulate(columns, today, from, to, totals);
+                return totals;
+            }
+            int mid = (from + to) >>> 1;
+            RangeTask left = new RangeTask(columns, titleCount, today, from, mid);
+            RangeTask right = new RangeTask(columns, titleCount, today, mid, to);
+            left.fork();
+            Totals totals = right.compute();
+            totals.add(left.join());
+            return totals;
+        }
+    }
+}
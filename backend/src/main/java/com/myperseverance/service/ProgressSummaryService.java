@@ -0,0 +1,90 @@
+package com.myperseverance.service;
+
+import com.myperseverance.config.CacheConfig;
+import com.myperseverance.dto.ProgressSummaryDTO;
+import com.myperseverance.model.ProgressTask;
+import com.myperseverance.model.User;
+import com.myperseverance.repository.ProgressTaskRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+@RequiredArgsConstructor
+public class ProgressSummaryService {
+
+    // Ranges kept per user; clients normally ask for one or two
+    private static final int MAX_RANGES_PER_USER = 4;
+
+    private final ProgressTaskRepository taskRepo;
+    private final TaskCompletionBuffer completionBuffer;
+    private final CacheManager cacheManager;
+
+    // One cache entry per user, so evicting the username drops all of their ranges
+    private static final class UserSummaries {
+        private final Map<String, List<ProgressSummaryDTO>> ranges = new LinkedHashMap<>(8, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, List<ProgressSummaryDTO>> eldest) {
+                return size() > MAX_RANGES_PER_USER;
+            }
+        };
+
+        synchronized List<ProgressSummaryDTO> get(String range) {
+            return ranges.get(range);
+        }
+
+        synchronized void put(String range, List<ProgressSummaryDTO> summary) {
+            ranges.put(range, summary);
+        }
+    }
+
+    public List<ProgressSummaryDTO> summarize(User user, LocalDate start, LocalDate end) {
+        // Taken before the query: if a write evicts it meanwhile, the result lands in a detached entry
+        UserSummaries summaries = cache().get(user.getUsername(), UserSummaries::new);
+        String range = start + ":" + end;
+        List<ProgressSummaryDTO> cached = summaries.get(range);
+        if (cached != null) {
+            return cached;
+        }
+        List<ProgressSummaryDTO> summary = compute(user, start, end);
+        summaries.put(range, summary);
+        return summary;
+    }
+
+    private List<ProgressSummaryDTO> compute(User user, LocalDate start, LocalDate end) {
+        List<ProgressTask> tasks = taskRepo.findByUserAndDateBetween(user, start, end);
+
+        Map<LocalDate, ProgressSummaryDTO> summaryMap = new HashMap<>();
+
+        for (ProgressTask task : tasks) {
+            completionBuffer.applyPending(task);
+            LocalDate date = task.getDate();
+            summaryMap.putIfAbsent(date, new ProgressSummaryDTO(date, 0, 0, new ArrayList<>()));
+
+            ProgressSummaryDTO summary = summaryMap.get(date);
+            summary.incrementTotal();
+            if (task.isCompleted()) {
+                summary.incrementCompleted();
+                summary.addTaskTitle(task.getTitle());
+            }
+        }
+
+        return new ArrayList<>(summaryMap.values());
+    }
+
+    private Cache cache() {
+        Cache cache = cacheManager.getCache(CacheConfig.SUMMARIES);
+        if (cache == null) {
+            throw new IllegalStateException("Cache not configured: " + CacheConfig.SUMMARIES);
+        }
+        return cache;
+    }
+}
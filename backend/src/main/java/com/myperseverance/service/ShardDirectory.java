@@ -0,0 +1,83 @@
+package com.myperseverance.service;
+
+import com.myperseverance.config.CacheConfig;
+import com.myperseverance.config.ShardRegistry;
+import com.myperseverance.config.ShardingProperties;
+import com.myperseverance.util.ConsistentHashShardMap;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Which shard holds a user's tasks. The user_shards table on the primary is authoritative;
+ * a user without a row is placed by the hash ring on first access. Placements are cached
+ * per node and evicted cluster-wide whenever a migration changes them; while the invalidation
+ * listener is disconnected those evictions can be missed, so every lookup goes to the table.
+ */
+@Service
+@ConditionalOnProperty(name = "sharding.enabled", havingValue = "true")
+public class ShardDirectory {
+
+    public record Placement(String shard, boolean moving) {
+    }
+
+    private final JdbcTemplate primary;
+    private final ConsistentHashShardMap shardMap;
+    private final CacheManager cacheManager;
+    private final ClusterCacheInvalidator cacheInvalidator;
+    private final ClusterInvalidationListener invalidationListener;
+
+    public ShardDirectory(ShardRegistry registry, ConsistentHashShardMap shardMap, CacheManager cacheManager,
+                          ClusterCacheInvalidator cacheInvalidator, ClusterInvalidationListener invalidationListener) {
+        this.primary = registry.jdbc(ShardingProperties.PRIMARY);
+        this.shardMap = shardMap;
+        this.cacheManager = cacheManager;
+        this.cacheInvalidator = cacheInvalidator;
+        this.invalidationListener = invalidationListener;
+    }
+
+    public Placement placementFor(long userId) {
+        if (!invalidationListener.isListening()) {
+            return loadOrAssign(userId);
+        }
+        return cache().get(String.valueOf(userId), () -> loadOrAssign(userId));
+    }
+
+    // Where the hash ring would put the user today; differs from placementFor after shards are added
+    public String ringShardFor(long userId) {
+        return shardMap.shardFor(userId);
+    }
+
+    public List<Long> userIds() {
+        return primary.queryForList("SELECT user_id FROM user_shards ORDER BY user_id", Long.class);
+    }
+
+    public void setMoving(long userId, boolean moving) {
+        primary.update("UPDATE user_shards SET moving = ? WHERE user_id = ?", moving, userId);
+        cacheInvalidator.invalidate(CacheConfig.USER_SHARDS, String.valueOf(userId));
+    }
+
+    public void reassign(long userId, String shard) {
+        primary.update("UPDATE user_shards SET shard = ?, moving = FALSE WHERE user_id = ?", shard, userId);
+        cacheInvalidator.invalidate(CacheConfig.USER_SHARDS, String.valueOf(userId));
+    }
+
+    private Placement loadOrAssign(long userId) {
+        primary.update("INSERT INTO user_shards (user_id, shard) VALUES (?, ?) ON CONFLICT (user_id) DO NOTHING",
+                userId, shardMap.shardFor(userId));
+        return primary.queryForObject("SELECT shard, moving FROM user_shards WHERE user_id = ?",
+                (rs, rowNum) -> new Placement(rs.getString("shard"), rs.getBoolean("moving")), userId);
+    }
+
+    private Cache cache() {
+        Cache cache = cacheManager.getCache(CacheConfig.USER_SHARDS);
+        if (cache == null) {
+            throw new IllegalStateException("Cache not configured: " + CacheConfig.USER_SHARDS);
+        }
+        return cache;
+    }
+}
@@ -0,0 +1,13 @@
+package com.myperseverance.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// Writes for a user are refused for the few seconds their tasks are being moved to another shard
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class ShardMigrationInProgressException extends RuntimeException {
+
+    public ShardMigrationInProgressException(long userId) {
+        super("Tasks of user " + userId + " are being moved to another shard, retry shortly");
+    }
+}
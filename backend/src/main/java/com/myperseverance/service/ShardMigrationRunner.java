@@ -0,0 +1,55 @@
+package com.myperseverance.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * One-off rebalancing tool, run next to the serving nodes against the same databases:
+ * <pre>
+ * java -jar app.jar --spring.main.web-application-type=none --shard-migrate-user=42 --shard-target=shard-1
+ * java -jar app.jar --spring.main.web-application-type=none --shard-rebalance
+ * </pre>
+ * Exits when done. Without these arguments it does nothing.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "sharding.enabled", havingValue = "true")
+public class ShardMigrationRunner implements ApplicationRunner {
+
+    private final ShardMigrationService migrationService;
+    private final ConfigurableApplicationContext context;
+
+    public ShardMigrationRunner(ShardMigrationService migrationService, ConfigurableApplicationContext context) {
+        this.migrationService = migrationService;
+        this.context = context;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        if (args.containsOption("shard-rebalance")) {
+            int moved = migrationService.rebalance();
+            log.info("Rebalance finished, moved {} users", moved);
+        } else if (args.containsOption("shard-migrate-user")) {
+            long userId = Long.parseLong(single(args, "shard-migrate-user"));
+            migrationService.migrate(userId, single(args, "shard-target"));
+        } else {
+            return;
+        }
+        System.exit(SpringApplication.exit(context));
+    }
+
+    private String single(ApplicationArguments args, String name) {
+        List<String> values = args.getOptionValues(name);
+        if (values == null || values.size() != 1) {
+            throw new IllegalArgumentException("Expected exactly one --" + name + "=<value>");
+        }
+        return values.get(0);
+    }
+}
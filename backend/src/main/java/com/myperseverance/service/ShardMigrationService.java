@@ -0,0 +1,211 @@
+package com.myperseverance.service;
+
+import com.myperseverance.config.ShardRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Moves a user's tasks between shards while the application keeps serving:
+ * <ol>
+ *     <li>bulk copy to the target while the user keeps reading and writing on the source,</li>
+ *     <li>flag the user as moving, which makes every node refuse their writes,</li>
+ *     <li>after a grace period for the flag to reach all nodes, freeze the user on the source,</li>
+ *     <li>make the target match the source in one transaction,</li>
+ *     <li>point the directory at the target, then delete the rows from the source.</li>
+ * </ol>
+ * The moving flag travels through cached placements, so a node that missed the eviction could
+ * still write to the source. The freeze is the actual fence: it lives in the source's sync_versions
+ * row, which every task write locks (see schema.sql), and it stays set after the move.
+ * Task ids are unique across shards, so rows keep their ids. The target's change-version counter
+ * starts above the source's and tombstones move along, so delta-sync clients only see the
+ * copied rows as changed once more.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "sharding.enabled", havingValue = "true")
+public class ShardMigrationService {
+
+    // Raised by next_sync_version (schema.sql) for writes of a frozen user
+    public static final String FROZEN_SQLSTATE = "MP001";
+
+    private static final int BATCH_SIZE = 1000;
+
+    private static final String SELECT_BATCH =
+            "SELECT id, title, description, completed, date, user_id FROM progress_tasks " +
+                    "WHERE user_id = ? AND id > ? ORDER BY id LIMIT " + BATCH_SIZE;
+    // Bulk phase: rows clashing with leftovers on (user_id, date, title) are skipped and fixed under the freeze
+    private static final String INSERT_IF_ABSENT =
+            "INSERT INTO progress_tasks (id, title, description, completed, date, user_id) " +
+                    "VALUES (?, ?, ?, ?, ?, ?) ON CONFLICT DO NOTHING";
+    private static final String UPSERT =
+            "INSERT INTO progress_tasks (id, title, description, completed, date, user_id) " +
+                    "VALUES (?, ?, ?, ?, ?, ?) ON CONFLICT (id) DO UPDATE SET " +
+                    "title = EXCLUDED.title, description = EXCLUDED.description, " +
+                    "completed = EXCLUDED.completed, date = EXCLUDED.date";
+    private static final String SEED_VERSIONS =
+            "INSERT INTO sync_versions (user_id, version, compacted_version) VALUES (?, ?, ?) " +
+                    "ON CONFLICT (user_id) DO UPDATE SET " +
+                    "version = GREATEST(sync_versions.version, EXCLUDED.version), " +
+                    "compacted_version = GREATEST(sync_versions.compacted_version, EXCLUDED.compacted_version), " +
+                    // The target may still be fenced from a user's earlier move away from it
+                    "frozen = FALSE";
+    private static final String FREEZE =
+            "INSERT INTO sync_versions (user_id, frozen) VALUES (?, ?) " +
+                    "ON CONFLICT (user_id) DO UPDATE SET frozen = EXCLUDED.frozen";
+    // Keeps the newer tombstone when the target already has one from synchronize
+    private static final String UPSERT_TOMBSTONE =
+            "INSERT INTO progress_task_tombstones (task_id, user_id, change_version, deleted_at) " +
+                    "VALUES (?, ?, ?, ?) ON CONFLICT (task_id) DO UPDATE SET " +
+                    "change_version = GREATEST(progress_task_tombstones.change_version, EXCLUDED.change_version)";
+
+    private final ShardRegistry registry;
+    private final ShardDirectory directory;
+    private final long graceMs;
+
+    public ShardMigrationService(ShardRegistry registry, ShardDirectory directory,
+                                 @Value("${sharding.migration.grace-ms:3000}") long graceMs) {
+        this.registry = registry;
+        this.directory = directory;
+        this.graceMs = graceMs;
+    }
+
+    public void migrate(long userId, String target) throws InterruptedException {
+        if (!registry.contains(target)) {
+            throw new IllegalArgumentException("Unknown shard: " + target);
+        }
+        String source = directory.placementFor(userId).shard();
+        if (source.equals(target)) {
+            return;
+        }
+
+        seedVersions(userId, source, target);
+        int copied = bulkCopy(userId, source, target);
+        log.info("User {}: copied {} tasks from {} to {}, freezing writes", userId, copied, source, target);
+
+        directory.setMoving(userId, true);
+        try {
+            Thread.sleep(graceMs);
+            // Waits for the user's open writes on the source; after it, the source counter is final
+            registry.jdbc(source).update(FREEZE, userId, true);
+            seedVersions(userId, source, target);
+            synchronize(userId, source, target);
+            copyTombstones(userId, source, target);
+            directory.reassign(userId, target);
+        } catch (RuntimeException | InterruptedException e) {
+            registry.jdbc(source).update(FREEZE, userId, false);
+            directory.setMoving(userId, false);
+            throw e;
+        }
+
+        JdbcTemplate from = registry.jdbc(source);
+        Integer removed = registry.transactions(source).execute(status -> {
+            // Lifted for this transaction only: other writers wait on the row lock and find the user frozen again
+            from.update(FREEZE, userId, false);
+            int deleted = from.update("DELETE FROM progress_tasks WHERE user_id = ?", userId);
+            // The delete above left tombstones that belong to no client's view of the user
+            from.update("DELETE FROM progress_task_tombstones WHERE user_id = ?", userId);
+            from.update(FREEZE, userId, true);
+            return deleted;
+        });
+        log.info("User {}: now on {}, removed {} tasks from {}", userId, target, removed, source);
+    }
+
+    // Moves every user whose placement differs from the hash ring, e.g. after adding a shard
+    public int rebalance() throws InterruptedException {
+        int moved = 0;
+        for (Long userId : directory.userIds()) {
+            String ringShard = directory.ringShardFor(userId);
+            if (!ringShard.equals(directory.placementFor(userId).shard())) {
+                migrate(userId, ringShard);
+                moved++;
+            }
+        }
+        return moved;
+    }
+
+    private int bulkCopy(long userId, String source, String target) {
+        JdbcTemplate to = registry.jdbc(target);
+        long lastId = 0;
+        int copied = 0;
+
+        while (true) {
+            List<Object[]> rows = readBatch(userId, source, lastId);
+            if (rows.isEmpty()) {
+                return copied;
+            }
+            registry.transactions(target).executeWithoutResult(status -> to.batchUpdate(INSERT_IF_ABSENT, rows));
+            copied += rows.size();
+            lastId = (Long) rows.get(rows.size() - 1)[0];
+        }
+    }
+
+    /**
+     * Makes the user's rows on the target equal to the source's, in one transaction. Target rows
+     * whose id, date and title don't all match a source row are deleted first (deleted, re-created
+     * or renamed since the bulk copy), which leaves no row the upsert could clash with on
+     * (user_id, date, title). A failure rolls everything back, so the migration can simply be retried.
+     */
+    private void synchronize(long userId, String source, String target) {
+        List<Object[]> rows = new ArrayList<>();
+        for (List<Object[]> batch = readBatch(userId, source, 0); !batch.isEmpty();
+             batch = readBatch(userId, source, (Long) batch.get(batch.size() - 1)[0])) {
+            rows.addAll(batch);
+        }
+
+        JdbcTemplate to = registry.jdbc(target);
+        registry.transactions(target).executeWithoutResult(status -> {
+            to.update(connection -> {
+                var statement = connection.prepareStatement(
+                        "DELETE FROM progress_tasks t WHERE t.user_id = ? AND NOT EXISTS (" +
+                                "SELECT 1 FROM unnest(?, ?, ?) AS s(id, date, title) " +
+                                "WHERE s.id = t.id AND s.date IS NOT DISTINCT FROM t.date " +
+                                "AND s.title IS NOT DISTINCT FROM t.title)");
+                statement.setLong(1, userId);
+                statement.setArray(2, connection.createArrayOf("bigint", rows.stream().map(r -> r[0]).toArray()));
+                statement.setArray(3, connection.createArrayOf("date", rows.stream().map(r -> r[4]).toArray()));
+                statement.setArray(4, connection.createArrayOf("varchar", rows.stream().map(r -> r[1]).toArray()));
+                return statement;
+            });
+            to.batchUpdate(UPSERT, rows);
+            // Rows deleted above and inserted again are alive: their tombstones would only confuse clients
+            to.update("DELETE FROM progress_task_tombstones d WHERE d.user_id = ? " +
+                    "AND EXISTS (SELECT 1 FROM progress_tasks t WHERE t.id = d.task_id)", userId);
+        });
+    }
+
+    private List<Object[]> readBatch(long userId, String shard, long afterId) {
+        return registry.jdbc(shard).query(SELECT_BATCH, (rs, rowNum) -> new Object[]{
+                rs.getLong("id"), rs.getString("title"), rs.getString("description"),
+                rs.getBoolean("completed"), rs.getDate("date"), rs.getLong("user_id")
+        }, userId, afterId);
+    }
+
+    // Versions on the target must continue above everything a client may have seen on the source
+    private void seedVersions(long userId, String source, String target) {
+        List<Object[]> versions = registry.jdbc(source).query(
+                "SELECT version, compacted_version FROM sync_versions WHERE user_id = ?",
+                (rs, rowNum) -> new Object[]{userId, rs.getLong("version"), rs.getLong("compacted_version")},
+                userId);
+        if (!versions.isEmpty()) {
+            registry.jdbc(target).update(SEED_VERSIONS, versions.get(0));
+        }
+    }
+
+    private void copyTombstones(long userId, String source, String target) {
+        List<Object[]> rows = registry.jdbc(source).query(
+                "SELECT task_id, user_id, change_version, deleted_at FROM progress_task_tombstones WHERE user_id = ?",
+                (rs, rowNum) -> new Object[]{
+                        rs.getLong("task_id"), rs.getLong("user_id"),
+                        rs.getLong("change_version"), rs.getTimestamp("deleted_at")
+                }, userId);
+        if (!rows.isEmpty()) {
+            registry.transactions(target).executeWithoutResult(status -> registry.jdbc(target).batchUpdate(UPSERT_TOMBSTONE, rows));
+        }
+    }
+}
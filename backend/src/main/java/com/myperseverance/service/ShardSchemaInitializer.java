@@ -0,0 +1,122 @@
+package com.myperseverance.service;
+
+import com.myperseverance.config.ShardRegistry;
+import com.myperseverance.config.ShardingProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.stereotype.Component;
+
+import java.sql.Statement;
+
+/**
+ * Prepares the shards before the web server starts. Hibernate only manages the primary,
+ * so each extra shard gets the progress_tasks table and schema.sql here. Task ids are kept
+ * unique across shards: every shard's identity steps by {@link #ID_STRIDE} from its own offset,
+ * which lets a migration copy rows without renumbering them.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "sharding.enabled", havingValue = "true")
+public class ShardSchemaInitializer implements SmartInitializingSingleton {
+
+    public static final int ID_STRIDE = 1024;
+
+    // Serializes startup DDL between nodes
+    private static final long LOCK_KEY = 0x5348415244L;
+
+    private final ShardRegistry registry;
+
+    public ShardSchemaInitializer(ShardRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (registry.names().size() > ID_STRIDE) {
+            throw new IllegalStateException("At most " + ID_STRIDE + " shards are supported");
+        }
+        registry.jdbc(ShardingProperties.PRIMARY).execute((ConnectionCallback<Void>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SELECT pg_advisory_lock(" + LOCK_KEY + ")");
+                try {
+                    initialize();
+                } finally {
+                    statement.execute("SELECT pg_advisory_unlock(" + LOCK_KEY + ")");
+                }
+            }
+            return null;
+        });
+    }
+
+    private void initialize() {
+        JdbcTemplate primary = registry.jdbc(ShardingProperties.PRIMARY);
+        if (!tableExists(primary, "user_shards")) {
+            primary.execute("CREATE TABLE user_shards (" +
+                    "user_id BIGINT PRIMARY KEY, " +
+                    "shard VARCHAR(64) NOT NULL, " +
+                    "moving BOOLEAN NOT NULL DEFAULT FALSE)");
+            // Everything written before sharding was enabled lives on the primary
+            int pinned = primary.update("INSERT INTO user_shards (user_id, shard) SELECT id, ? FROM users",
+                    ShardingProperties.PRIMARY);
+            log.info("Created user_shards, pinned {} existing users to the primary", pinned);
+        }
+
+        long base = nextIdBase();
+        for (String shard : registry.names()) {
+            JdbcTemplate jdbc = registry.jdbc(shard);
+            long start = base + registry.indexOf(shard) + 1;
+
+            if (!ShardingProperties.PRIMARY.equals(shard) && !tableExists(jdbc, "progress_tasks")) {
+                // Same columns Hibernate creates on the primary; user_id has no FK since users stay on the primary
+                jdbc.execute("CREATE TABLE progress_tasks (" +
+                        "id BIGINT GENERATED BY DEFAULT AS IDENTITY (START WITH " + start +
+                        " INCREMENT BY " + ID_STRIDE + ") PRIMARY KEY, " +
+                        "completed BOOLEAN NOT NULL, " +
+                        "date DATE, " +
+                        "description VARCHAR(255), " +
+                        "title VARCHAR(255), " +
+                        "user_id BIGINT NOT NULL, " +
+                        "CONSTRAINT uk_progress_tasks_user_date_title UNIQUE (user_id, date, title))");
+                jdbc.execute("CREATE INDEX idx_progress_tasks_user_date ON progress_tasks (user_id, date)");
+                log.info("Created progress_tasks on shard {}", shard);
+            }
+            if (!ShardingProperties.PRIMARY.equals(shard)) {
+                ResourceDatabasePopulator populator = new ResourceDatabasePopulator(new ClassPathResource("schema.sql"));
+                populator.setSeparator(ScriptUtils.EOF_STATEMENT_SEPARATOR);
+                populator.execute(registry.dataSource(shard));
+            }
+
+            Long increment = jdbc.queryForObject(
+                    "SELECT identity_increment::bigint FROM information_schema.columns " +
+                            "WHERE table_name = 'progress_tasks' AND column_name = 'id'", Long.class);
+            if (increment == null || increment != ID_STRIDE) {
+                jdbc.execute("ALTER TABLE progress_tasks ALTER COLUMN id " +
+                        "SET INCREMENT BY " + ID_STRIDE + " RESTART WITH " + start);
+                log.info("Shard {} now allocates task ids from {} in steps of {}", shard, start, ID_STRIDE);
+            }
+        }
+    }
+
+    // First multiple of the stride above every task id on every shard
+    private long nextIdBase() {
+        long max = 0;
+        for (String shard : registry.names()) {
+            JdbcTemplate jdbc = registry.jdbc(shard);
+            if (tableExists(jdbc, "progress_tasks")) {
+                Long shardMax = jdbc.queryForObject("SELECT COALESCE(MAX(id), 0) FROM progress_tasks", Long.class);
+                max = Math.max(max, shardMax != null ? shardMax : 0);
+            }
+        }
+        return (max / ID_STRIDE + 1) * ID_STRIDE;
+    }
+
+    private boolean tableExists(JdbcTemplate jdbc, String table) {
+        return Boolean.TRUE.equals(jdbc.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, table));
+    }
+}
@@ -0,0 +1,172 @@
+package com.myperseverance.service;
+
+import com.myperseverance.config.CacheConfig;
+import com.myperseverance.model.ProgressTask;
+import com.myperseverance.model.User;
+import com.myperseverance.repository.ProgressTaskRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind buffer for completion toggles (progress.write-behind.enabled).
+ * Only the latest state per task is kept and flushed as at most two batched UPDATEs per user
+ * every progress.write-behind.flush-interval-ms, which bounds the data-loss window on a crash.
+ * Reads on this node see buffered state through {@link #applyPending(ProgressTask)}.
+ * Other nodes don't see it until the flush, so the mode is for single-node deployments
+ * (or sticky sessions) only.
+ * <p>
+ * A flush holds the lock stripes of the tasks it writes, and {@link #discard(Long)} takes the
+ * task's stripe, so a direct write that discards a toggle can't be overwritten by an older
+ * buffered value afterwards.
+ */
+@Slf4j
+@Service
+public class TaskCompletionBuffer {
+
+    private record PendingCompletion(User user, boolean completed) {
+    }
+
+    private final ProgressTaskRepository taskRepo;
+    private final ClusterCacheInvalidator cacheInvalidator;
+    private final boolean enabled;
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final Map<Long, PendingCompletion> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+
+    public TaskCompletionBuffer(ProgressTaskRepository taskRepo,
+                                ClusterCacheInvalidator cacheInvalidator,
+                                @Value("${progress.write-behind.enabled:false}") boolean enabled) {
+        this.taskRepo = taskRepo;
+        this.cacheInvalidator = cacheInvalidator;
+        this.enabled = enabled;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Overwrites any earlier toggle of the same task that hasn't been flushed yet
+    public void record(Long taskId, User user, boolean completed) {
+        pending.put(taskId, new PendingCompletion(user, completed));
+        cacheInvalidator.evictLocal(CacheConfig.SUMMARIES, user.getUsername());
+    }
+
+    // Drops a buffered toggle that a direct write is about to supersede; waits for a flush writing it
+    public void discard(Long taskId) {
+        ReentrantLock lock = locks[stripe(taskId)];
+        lock.lock();
+        try {
+            pending.remove(taskId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public ProgressTask applyPending(ProgressTask task) {
+        Boolean completed = pendingCompleted(task.getId());
+        if (completed != null) {
+            task.setCompleted(completed);
+        }
+        return task;
+    }
+
+    // Buffered completion state, or null if nothing is pending for the task
+    public Boolean pendingCompleted(Long taskId) {
+        PendingCompletion completion = pending.get(taskId);
+        return completion != null ? completion.completed() : null;
+    }
+
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    @Scheduled(fixedDelayString = "${progress.write-behind.flush-interval-ms:1000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        Map<Long, PendingCompletion> snapshot = new HashMap<>(pending);
+        Map<Long, List<Long>> snapshotByUser = new HashMap<>();
+        snapshot.forEach((id, completion) ->
+                snapshotByUser.computeIfAbsent(completion.user().getId(), k -> new ArrayList<>()).add(id));
+
+        // One user at a time: updates are scoped (and routed) by user, and one failure doesn't hold back the rest
+        for (List<Long> taskIds : snapshotByUser.values()) {
+            User user = snapshot.get(taskIds.get(0)).user();
+            // Latest state under the stripe locks; tasks discarded since the snapshot belong to a direct write now
+            Map<Long, PendingCompletion> batch = new HashMap<>();
+            List<ReentrantLock> held = lockStripes(taskIds);
+            try {
+                List<Long> completedIds = new ArrayList<>();
+                List<Long> uncompletedIds = new ArrayList<>();
+                for (Long id : taskIds) {
+                    PendingCompletion completion = pending.get(id);
+                    if (completion != null) {
+                        batch.put(id, completion);
+                        (completion.completed() ? completedIds : uncompletedIds).add(id);
+                    }
+                }
+
+                if (!completedIds.isEmpty()) {
+                    taskRepo.updateCompleted(user, completedIds, true);
+                }
+                if (!uncompletedIds.isEmpty()) {
+                    taskRepo.updateCompleted(user, uncompletedIds, false);
+                }
+            } catch (Exception e) {
+                // Entries stay buffered and are retried on the next tick
+                log.warn("Failed to flush {} buffered task completions of user {}", taskIds.size(), user.getId(), e);
+                continue;
+            } finally {
+                held.forEach(ReentrantLock::unlock);
+            }
+            if (batch.isEmpty()) {
+                continue;
+            }
+
+            // Keep entries toggled again since they were written
+            batch.forEach(pending::remove);
+            cacheInvalidator.invalidate(CacheConfig.SUMMARIES, user.getUsername());
+            // This node already applied the toggles to its insights columns
+            cacheInvalidator.invalidateRemote(CacheConfig.INSIGHTS, user.getUsername());
+        }
+    }
+
+    // Locks in stripe order so concurrent flushes can't deadlock
+    private List<ReentrantLock> lockStripes(List<Long> taskIds) {
+        List<ReentrantLock> held = new ArrayList<>();
+        taskIds.stream().map(this::stripe).distinct().sorted().forEach(stripe -> {
+            locks[stripe].lock();
+            held.add(locks[stripe]);
+        });
+        return held;
+    }
+
+    private int stripe(Long taskId) {
+        return Math.floorMod(taskId.hashCode(), LOCK_STRIPES);
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+        if (!pending.isEmpty()) {
+            log.error("{} buffered task completions could not be written before shutdown", pending.size());
+        }
+    }
+}
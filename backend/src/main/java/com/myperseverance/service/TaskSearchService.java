@@ -0,0 +1,79 @@
+package com.myperseverance.service;
+
+import com.myperseverance.dto.TaskSearchResponse;
+import com.myperseverance.dto.TaskSearchResultDTO;
+import com.myperseverance.model.ProgressTask;
+import com.myperseverance.model.User;
+import com.myperseverance.repository.ProgressTaskRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+@Service
+@RequiredArgsConstructor
+public class TaskSearchService {
+
+    public static final int MAX_PAGE_SIZE = 50;
+
+    // Postgres date range is narrower than LocalDate's
+    private static final LocalDate EARLIEST = LocalDate.of(1, 1, 1);
+    private static final LocalDate LATEST = LocalDate.of(9999, 12, 31);
+
+    private final ProgressTaskRepository taskRepo;
+    private final TaskCompletionBuffer completionBuffer;
+
+    public TaskSearchResponse search(User user, String text, LocalDate from, LocalDate to, int page, int size) {
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        int pageNumber = Math.max(page, 0);
+
+        String query = toTsQuery(text);
+        if (query.isEmpty()) {
+            return new TaskSearchResponse(List.of(), pageNumber, pageSize, false);
+        }
+
+        Slice<ProgressTask> slice = taskRepo.search(user, query,
+                from != null ? from : EARLIEST,
+                to != null ? to : LATEST,
+                PageRequest.of(pageNumber, pageSize));
+
+        List<TaskSearchResultDTO> results = new ArrayList<>();
+        for (ProgressTask task : slice) {
+            completionBuffer.applyPending(task);
+            results.add(new TaskSearchResultDTO(task.getId(), task.getTitle(), task.getDescription(),
+                    task.isCompleted(), task.getDate()));
+        }
+        return new TaskSearchResponse(results, pageNumber, pageSize, slice.hasNext());
+    }
+
+    /**
+     * Turns free text into a tsquery: words are AND-ed and the last one is a prefix match,
+     * so "morn ru" matches "Morning run". Anything that isn't a letter or digit is dropped,
+     * which keeps tsquery operators in user input from reaching Postgres.
+     */
+    static String toTsQuery(String text) {
+        if (text == null) {
+            return "";
+        }
+        String[] words = text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+");
+        StringBuilder query = new StringBuilder();
+        for (String word : words) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            if (!query.isEmpty()) {
+                query.append(" & ");
+            }
+            query.append(word);
+        }
+        if (!query.isEmpty()) {
+            query.append(":*");
+        }
+        return query.toString();
+    }
+}
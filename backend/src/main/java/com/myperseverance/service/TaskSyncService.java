@@ -0,0 +1,71 @@
+package com.myperseverance.service;
+
+import com.myperseverance.dto.TaskChangeDTO;
+import com.myperseverance.dto.TaskChangesResponse;
+import com.myperseverance.dto.TaskTombstoneDTO;
+import com.myperseverance.model.User;
+import com.myperseverance.repository.ProgressTaskRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Delta sync for offline clients. Every write to a task stamps it with the user's next change
+ * version and every delete leaves a tombstone with one (see schema.sql), so a client only
+ * fetches what changed after the last version it saw. Versions follow commit order per user:
+ * the counter row stays locked until the writing transaction commits. A page is read with a
+ * single statement, so it never sees a later version without the earlier ones.
+ */
+@Service
+@RequiredArgsConstructor
+public class TaskSyncService {
+
+    public static final int MAX_PAGE_SIZE = 500;
+
+    private final ProgressTaskRepository taskRepo;
+    private final TaskCompletionBuffer completionBuffer;
+
+    public TaskChangesResponse changesSince(User user, long since, int limit) {
+        int pageSize = Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+        long from = Math.max(since, 0);
+
+        // One extra row tells whether another page follows
+        List<Object[]> rows = taskRepo.findChangesSince(user, from, pageSize + 1);
+
+        // A fresh client (since 0) gets every live row and needs no tombstones
+        long compactedVersion = ((Number) rows.get(0)[7]).longValue();
+        if (from > 0 && from < compactedVersion) {
+            return new TaskChangesResponse(List.of(), List.of(), 0, false, true);
+        }
+
+        List<TaskChangeDTO> changed = new ArrayList<>();
+        List<TaskTombstoneDTO> deleted = new ArrayList<>();
+        long nextSince = from;
+        for (Object[] row : rows.subList(0, Math.min(rows.size(), pageSize))) {
+            if (row[0] == null) {
+                break;
+            }
+            Long id = ((Number) row[1]).longValue();
+            long version = ((Number) row[6]).longValue();
+            if ("T".equals(row[0])) {
+                Boolean pending = completionBuffer.pendingCompleted(id);
+                changed.add(new TaskChangeDTO(id, (String) row[2], (String) row[3],
+                        pending != null ? pending : (Boolean) row[4], toLocalDate(row[5]), version));
+            } else {
+                deleted.add(new TaskTombstoneDTO(id, version));
+            }
+            nextSince = version;
+        }
+        boolean hasMore = rows.size() > pageSize;
+        return new TaskChangesResponse(changed, deleted, nextSince, hasMore, false);
+    }
+
+    // Native queries hand back java.sql.Date or LocalDate depending on the Hibernate version
+    private static LocalDate toLocalDate(Object date) {
+        return date instanceof Date sqlDate ? sqlDate.toLocalDate() : (LocalDate) date;
+    }
+}
@@ -0,0 +1,79 @@
+package com.myperseverance.service;
+
+import com.myperseverance.config.ShardRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Deletes tombstones older than sync.tombstone-retention-days in small batches and raises
+ * each affected user's compacted_version, so clients that were offline longer get a reset
+ * instead of silently missing deletions.
+ */
+@Slf4j
+@Service
+public class TombstoneCompactor {
+
+    private static final int BATCH_SIZE = 1000;
+
+    // Returns the number of users whose compacted_version moved, zero once nothing is left
+    private static final String COMPACT_BATCH =
+            "WITH gone AS (" +
+                    "DELETE FROM progress_task_tombstones WHERE task_id IN (" +
+                    "SELECT task_id FROM progress_task_tombstones WHERE deleted_at < ? LIMIT " + BATCH_SIZE + ") " +
+                    "RETURNING user_id, change_version) " +
+                    "UPDATE sync_versions v SET compacted_version = GREATEST(v.compacted_version, g.max_version) " +
+                    "FROM (SELECT user_id, MAX(change_version) AS max_version FROM gone GROUP BY user_id) g " +
+                    "WHERE v.user_id = g.user_id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectProvider<ShardRegistry> shardRegistry;
+    private final Duration retention;
+
+    public TombstoneCompactor(JdbcTemplate jdbcTemplate,
+                              ObjectProvider<ShardRegistry> shardRegistry,
+                              @Value("${sync.tombstone-retention-days:30}") long retentionDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.shardRegistry = shardRegistry;
+        this.retention = Duration.ofDays(retentionDays);
+    }
+
+    @Scheduled(fixedDelayString = "${sync.compaction-interval-ms:3600000}")
+    public void compact() {
+        Timestamp cutoff = Timestamp.from(Instant.now().minus(retention));
+        for (Map.Entry<String, JdbcTemplate> target : targets().entrySet()) {
+            try {
+                int users = 0;
+                int batch;
+                while ((batch = target.getValue().update(COMPACT_BATCH, cutoff)) > 0) {
+                    users += batch;
+                }
+                if (users > 0) {
+                    log.info("Compacted tombstones on {} for {} users", target.getKey(), users);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Tombstone compaction on {} failed, will retry", target.getKey(), e);
+            }
+        }
+    }
+
+    private Map<String, JdbcTemplate> targets() {
+        ShardRegistry registry = shardRegistry.getIfAvailable();
+        Map<String, JdbcTemplate> targets = new LinkedHashMap<>();
+        if (registry == null) {
+            targets.put("default", jdbcTemplate);
+        } else {
+            registry.names().forEach(shard -> targets.put(shard, registry.jdbc(shard)));
+        }
+        return targets;
+    }
+}
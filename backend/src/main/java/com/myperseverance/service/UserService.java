@@ -1,5 +1,6 @@
 package com.myperseverance.service;
 
+import com.myperseverance.config.CacheConfig;
 import com.myperseverance.dto.SignupRequest;
 import com.myperseverance.dto.UserProfile;
 import com.myperseverance.model.User;
@@ -20,6 +21,7 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final ClusterCacheInvalidator cacheInvalidator;
 
     public boolean signup(SignupRequest request) {
         if (!isEmailAvailable(request.getEmail()) || !isUsernameAvailable(request.getUsername())) {
@@ -34,6 +36,8 @@ public class UserService {
                 .build();
 
         userRepository.save(user);
+        // A lookup before signup may have cached "not found" for this username
+        cacheInvalidator.invalidate(CacheConfig.USERS, user.getUsername());
         return true;
     }
 
@@ -0,0 +1,121 @@
+package com.myperseverance.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One user's task history as parallel primitive arrays, sorted by task id.
+ * Ids are assigned in increasing order, so new tasks are appended and lookups are a binary search.
+ * Titles are dictionary-encoded. Not thread-safe; callers synchronize on the instance.
+ */
+final class UserTaskColumns {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private long[] taskIds = new long[INITIAL_CAPACITY];
+    private int[] epochDays = new int[INITIAL_CAPACITY];
+    private int[] titleIds = new int[INITIAL_CAPACITY];
+    private final BitSet completed = new BitSet();
+    private int size;
+    private long version;
+
+    private final List<String> titles = new ArrayList<>();
+    private final Map<String, Integer> titleIndex = new HashMap<>();
+
+    int size() {
+        return size;
+    }
+
+    // Bumped on every mutation so derived results know when they are stale
+    long version() {
+        return version;
+    }
+
+    int epochDay(int row) {
+        return epochDays[row];
+    }
+
+    int titleId(int row) {
+        return titleIds[row];
+    }
+
+    boolean isCompleted(int row) {
+        return completed.get(row);
+    }
+
+    List<String> titles() {
+        return titles;
+    }
+
+    void upsert(long taskId, long epochDay, String title, boolean done) {
+        int row = Arrays.binarySearch(taskIds, 0, size, taskId);
+        if (row < 0) {
+            row = -row - 1;
+            insertAt(row, taskId);
+        }
+        epochDays[row] = (int) epochDay;
+        titleIds[row] = titleIdFor(title);
+        completed.set(row, done);
+        version++;
+    }
+
+    void setCompleted(long taskId, boolean done) {
+        int row = Arrays.binarySearch(taskIds, 0, size, taskId);
+        if (row >= 0) {
+            completed.set(row, done);
+            version++;
+        }
+    }
+
+    void remove(long taskId) {
+        int row = Arrays.binarySearch(taskIds, 0, size, taskId);
+        if (row < 0) {
+            return;
+        }
+        int tail = size - row - 1;
+        System.arraycopy(taskIds, row + 1, taskIds, row, tail);
+        System.arraycopy(epochDays, row + 1, epochDays, row, tail);
+        System.arraycopy(titleIds, row + 1, titleIds, row, tail);
+        for (int i = row; i < size - 1; i++) {
+            completed.set(i, completed.get(i + 1));
+        }
+        completed.clear(size - 1);
+        size--;
+        version++;
+    }
+
+    private void insertAt(int row, long taskId) {
+        if (size == taskIds.length) {
+            int capacity = taskIds.length * 2;
+            taskIds = Arrays.copyOf(taskIds, capacity);
+            epochDays = Arrays.copyOf(epochDays, capacity);
+            titleIds = Arrays.copyOf(titleIds, capacity);
+        }
+        int tail = size - row;
+        if (tail > 0) {
+            System.arraycopy(taskIds, row, taskIds, row + 1, tail);
+            System.arraycopy(epochDays, row, epochDays, row + 1, tail);
+            System.arraycopy(titleIds, row, titleIds, row + 1, tail);
+            for (int i = size; i > row; i--) {
+                completed.set(i, completed.get(i - 1));
+            }
+        }
+        taskIds[row] = taskId;
+        size++;
+    }
+
+    private int titleIdFor(String title) {
+        String key = title != null ? title : "";
+        Integer id = titleIndex.get(key);
+        if (id == null) {
+            id = titles.size();
+            titles.add(key);
+            titleIndex.put(key, id);
+        }
+        return id;
+    }
+}
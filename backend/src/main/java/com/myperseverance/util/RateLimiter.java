@@ -0,0 +1,120 @@
+package com.myperseverance.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Per-key token buckets for admission control, one budget per endpoint class.
+ * Buckets live in hash-selected stripes; each stripe is capped, and once a stripe is full,
+ * new keys share a single overflow bucket for their class until idle buckets are evicted.
+ */
+@Component
+public class RateLimiter {
+
+    public enum EndpointClass {
+        // Credential checks (sign-in, sign-up) and the cheap auth calls (refresh, availability probes)
+        AUTH, AUTH_PROBE, SUMMARY, DEFAULT
+    }
+
+    private static final int STRIPES = 16;
+
+    private final ConcurrentMap<String, TokenBucket>[] stripes;
+    private final Map<EndpointClass, Budget> budgets = new EnumMap<>(EndpointClass.class);
+    private final Map<EndpointClass, TokenBucket> overflowBuckets = new EnumMap<>(EndpointClass.class);
+    private final Map<EndpointClass, Counter> allowed = new EnumMap<>(EndpointClass.class);
+    private final Map<EndpointClass, Counter> rejected = new EnumMap<>(EndpointClass.class);
+    private final int maxBucketsPerStripe;
+    private final long idleEvictionMs;
+
+    private record Budget(int capacity, double refillPerSecond) {
+    }
+
+    @SuppressWarnings("unchecked")
+    public RateLimiter(MeterRegistry meterRegistry,
+                       @Value("${rate-limit.auth.capacity:10}") int authCapacity,
+                       @Value("${rate-limit.auth.refill-per-second:0.2}") double authRefill,
+                       @Value("${rate-limit.auth-probe.capacity:30}") int authProbeCapacity,
+                       @Value("${rate-limit.auth-probe.refill-per-second:1}") double authProbeRefill,
+                       @Value("${rate-limit.summary.capacity:20}") int summaryCapacity,
+                       @Value("${rate-limit.summary.refill-per-second:2}") double summaryRefill,
+                       @Value("${rate-limit.default.capacity:100}") int defaultCapacity,
+                       @Value("${rate-limit.default.refill-per-second:20}") double defaultRefill,
+                       @Value("${rate-limit.max-buckets:100000}") int maxBuckets,
+                       @Value("${rate-limit.idle-eviction-ms:300000}") long idleEvictionMs) {
+        budgets.put(EndpointClass.AUTH, new Budget(authCapacity, authRefill));
+        budgets.put(EndpointClass.AUTH_PROBE, new Budget(authProbeCapacity, authProbeRefill));
+        budgets.put(EndpointClass.SUMMARY, new Budget(summaryCapacity, summaryRefill));
+        budgets.put(EndpointClass.DEFAULT, new Budget(defaultCapacity, defaultRefill));
+
+        long now = System.currentTimeMillis();
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            Budget budget = budgets.get(endpointClass);
+            overflowBuckets.put(endpointClass, new TokenBucket(budget.capacity(), budget.refillPerSecond(), now));
+
+            String tag = endpointClass.name().toLowerCase();
+            allowed.put(endpointClass, Counter.builder("admission.requests")
+                    .tag("class", tag).tag("outcome", "allowed").register(meterRegistry));
+            rejected.put(endpointClass, Counter.builder("admission.requests")
+                    .tag("class", tag).tag("outcome", "rejected").register(meterRegistry));
+        }
+
+        this.stripes = new ConcurrentMap[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ConcurrentHashMap<>();
+        }
+        this.maxBucketsPerStripe = Math.max(1, maxBuckets / STRIPES);
+        this.idleEvictionMs = idleEvictionMs;
+
+        meterRegistry.gauge("admission.buckets", this, RateLimiter::bucketCount);
+    }
+
+    /**
+     * @return 0 if the request is admitted, otherwise the ms until the key has budget again
+     */
+    public long tryAcquire(EndpointClass endpointClass, String key) {
+        long now = System.currentTimeMillis();
+        long waitMs = bucketFor(endpointClass, key, now).tryConsume(now);
+        (waitMs == 0 ? allowed : rejected).get(endpointClass).increment();
+        return waitMs;
+    }
+
+    @Scheduled(fixedDelayString = "${rate-limit.eviction-interval-ms:60000}")
+    public void evictIdleBuckets() {
+        long now = System.currentTimeMillis();
+        for (ConcurrentMap<String, TokenBucket> stripe : stripes) {
+            stripe.entrySet().removeIf(entry -> entry.getValue().isIdle(now, idleEvictionMs));
+        }
+    }
+
+    public int bucketCount() {
+        int count = 0;
+        for (ConcurrentMap<String, TokenBucket> stripe : stripes) {
+            count += stripe.size();
+        }
+        return count;
+    }
+
+    private TokenBucket bucketFor(EndpointClass endpointClass, String key, long now) {
+        String bucketKey = endpointClass.name() + ":" + key;
+        ConcurrentMap<String, TokenBucket> stripe = stripes[Math.floorMod(bucketKey.hashCode(), STRIPES)];
+
+        TokenBucket bucket = stripe.get(bucketKey);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (stripe.size() >= maxBucketsPerStripe) {
+            return overflowBuckets.get(endpointClass);
+        }
+        Budget budget = budgets.get(endpointClass);
+        return stripe.computeIfAbsent(bucketKey,
+                k -> new TokenBucket(budget.capacity(), budget.refillPerSecond(), now));
+    }
+}
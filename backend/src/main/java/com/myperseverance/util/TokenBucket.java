@@ -0,0 +1,80 @@
+package com.myperseverance.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket. Refill time (ms since creation) and the token count
+ * (in milli-tokens) are packed into one AtomicLong and updated with CAS.
+ */
+public final class TokenBucket {
+
+    private static final long SCALE = 1000;
+    private static final int TOKEN_BITS = 22;
+    private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+
+    public static final int MAX_CAPACITY = (int) (TOKEN_MASK / SCALE);
+
+    private final long capacity;
+    private final double refillPerMs;
+    private final long createdAtMs;
+    private final AtomicLong state;
+
+    public TokenBucket(int capacity, double refillPerSecond, long nowMs) {
+        if (capacity < 1 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Capacity must be between 1 and " + MAX_CAPACITY);
+        }
+        if (refillPerSecond <= 0) {
+            throw new IllegalArgumentException("Refill rate must be positive");
+        }
+        this.capacity = capacity * SCALE;
+        this.refillPerMs = refillPerSecond * SCALE / 1000.0;
+        this.createdAtMs = nowMs;
+        this.state = new AtomicLong(pack(0, this.capacity));
+    }
+
+    /**
+     * Takes one token if available.
+     *
+     * @return 0 if the token was taken, otherwise the ms until one becomes available
+     */
+    public long tryConsume(long nowMs) {
+        while (true) {
+            long current = state.get();
+            long last = current >>> TOKEN_BITS;
+            long now = Math.max(last, nowMs - createdAtMs);
+            long tokens = current & TOKEN_MASK;
+            long added = (long) ((now - last) * refillPerMs);
+
+            long refilled;
+            long refilledAt;
+            if (tokens + added >= capacity) {
+                refilled = capacity;
+                refilledAt = now;
+            } else {
+                // Only advance the clock by the time that was turned into tokens, so slow rates don't lose fractions
+                refilled = tokens + added;
+                refilledAt = last + (long) (added / refillPerMs);
+            }
+
+            if (refilled < SCALE) {
+                return (long) Math.ceil((SCALE - refilled) / refillPerMs);
+            }
+            if (state.compareAndSet(current, pack(refilledAt, refilled - SCALE))) {
+                return 0;
+            }
+        }
+    }
+
+    // A full bucket that has not been used for idleMs can be dropped without changing behaviour
+    public boolean isIdle(long nowMs, long idleMs) {
+        long current = state.get();
+        long last = current >>> TOKEN_BITS;
+        long elapsed = nowMs - createdAtMs - last;
+        long tokens = current & TOKEN_MASK;
+        return elapsed >= idleMs && tokens + (long) (elapsed * refillPerMs) >= capacity;
+    }
+
+    private static long pack(long refilledAt, long tokens) {
+        return (refilledAt << TOKEN_BITS) | tokens;
+    }
+}
@@ -0,0 +1,116 @@
+-- Runs after Hibernate's ddl-auto (spring.jpa.defer-datasource-initialization) on every startup.
+-- Sent to Postgres as one script (spring.sql.init.separator), which keeps the $$-quoted bodies intact.
+-- DDL on progress_tasks is guarded by catalog checks: ALTER TABLE and CREATE INDEX lock the table
+-- even when IF NOT EXISTS turns them into no-ops. Nodes starting together take turns on the advisory lock,
+-- which is released when the script's implicit transaction commits, so the next node sees the finished schema.
+SELECT pg_advisory_xact_lock(91548440415553);
+
+-- Full-text search over task title (weight A) and description (weight B).
+-- 'simple' config: no stemming, so prefix queries match what the user is typing.
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM information_schema.columns WHERE table_schema = current_schema()
+                   AND table_name = 'progress_tasks' AND column_name = 'search_vector') THEN
+        ALTER TABLE progress_tasks ADD COLUMN search_vector tsvector
+            GENERATED ALWAYS AS (
+                setweight(to_tsvector('simple', coalesce(title, '')), 'A') ||
+                setweight(to_tsvector('simple', coalesce(description, '')), 'B')
+            ) STORED;
+    END IF;
+END
+$$;
+
+-- btree_gin lets user_id share the GIN index, so a search only touches that user's entries
+CREATE EXTENSION IF NOT EXISTS btree_gin;
+DO $$
+BEGIN
+    IF to_regclass('idx_progress_tasks_search') IS NULL THEN
+        CREATE INDEX idx_progress_tasks_search ON progress_tasks USING GIN (user_id, search_vector);
+    END IF;
+END
+$$;
+
+-- Delta sync: every insert/update stamps the row with the user's next change version,
+-- every delete leaves a tombstone with one. See TaskSyncService.
+CREATE TABLE IF NOT EXISTS sync_versions (
+    user_id BIGINT PRIMARY KEY,
+    version BIGINT NOT NULL DEFAULT 0,
+    -- Tombstones up to this version have been compacted away
+    compacted_version BIGINT NOT NULL DEFAULT 0,
+    -- Set on the shard a user is moving away from; their writes there fail (see next_sync_version)
+    frozen BOOLEAN NOT NULL DEFAULT FALSE
+);
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM information_schema.columns WHERE table_schema = current_schema()
+                   AND table_name = 'sync_versions' AND column_name = 'frozen') THEN
+        ALTER TABLE sync_versions ADD COLUMN frozen BOOLEAN NOT NULL DEFAULT FALSE;
+    END IF;
+END
+$$;
+
+CREATE TABLE IF NOT EXISTS progress_task_tombstones (
+    task_id BIGINT PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    change_version BIGINT NOT NULL,
+    deleted_at TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+CREATE INDEX IF NOT EXISTS idx_tombstones_user_version ON progress_task_tombstones (user_id, change_version);
+CREATE INDEX IF NOT EXISTS idx_tombstones_deleted_at ON progress_task_tombstones (deleted_at);
+
+-- Hibernate adds change_version on the primary; the extra shards only get it here
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM information_schema.columns WHERE table_schema = current_schema()
+                   AND table_name = 'progress_tasks' AND column_name = 'change_version') THEN
+        ALTER TABLE progress_tasks ADD COLUMN change_version BIGINT;
+    END IF;
+    IF to_regclass('idx_progress_tasks_user_version') IS NULL THEN
+        CREATE INDEX idx_progress_tasks_user_version ON progress_tasks (user_id, change_version);
+    END IF;
+END
+$$;
+
+-- The counter row stays locked until commit, so one user's versions follow commit order.
+-- Every task write passes through here, which makes the frozen flag a fence no node can get around:
+-- setting it waits for the user's open writes to commit, and later writes fail with SQLSTATE MP001.
+CREATE OR REPLACE FUNCTION next_sync_version(uid BIGINT) RETURNS BIGINT AS $$
+DECLARE
+    next_version BIGINT;
+    is_frozen BOOLEAN;
+BEGIN
+    INSERT INTO sync_versions (user_id, version) VALUES (uid, 1)
+    ON CONFLICT (user_id) DO UPDATE SET version = sync_versions.version + 1
+    RETURNING version, frozen INTO next_version, is_frozen;
+    IF is_frozen THEN
+        RAISE EXCEPTION 'Tasks of user % are being moved to another shard', uid USING ERRCODE = 'MP001';
+    END IF;
+    RETURN next_version;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION progress_tasks_track_change() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        INSERT INTO progress_task_tombstones (task_id, user_id, change_version)
+        VALUES (OLD.id, OLD.user_id, next_sync_version(OLD.user_id))
+        ON CONFLICT (task_id) DO UPDATE SET change_version = EXCLUDED.change_version, deleted_at = now();
+        RETURN OLD;
+    END IF;
+    NEW.change_version := next_sync_version(NEW.user_id);
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Created once; rows written before change tracking existed then get a version through the trigger
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_trigger WHERE tgrelid = to_regclass('progress_tasks')
+                   AND tgname = 'progress_tasks_track_change') THEN
+        CREATE TRIGGER progress_tasks_track_change
+            BEFORE INSERT OR UPDATE OR DELETE ON progress_tasks
+            FOR EACH ROW EXECUTE FUNCTION progress_tasks_track_change();
+        UPDATE progress_tasks SET change_version = 0 WHERE change_version IS NULL;
+    END IF;
+END
+$$;
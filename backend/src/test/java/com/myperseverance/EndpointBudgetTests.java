@@ -0,0 +1,296 @@
+package com.myperseverance;
+
+import com.myperseverance.config.CacheConfig;
+import com.myperseverance.dto.SignupRequest;
+import com.myperseverance.model.User;
+import com.myperseverance.repository.UserRepository;
+import com.myperseverance.service.UserService;
+import com.myperseverance.util.JwtUtil;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import jakarta.persistence.EntityManagerFactory;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+/**
+ * Query and allocation budgets per endpoint, so N+1 selects, lazy-loading and accidental
+ * full-history loads fail the build. Each request runs once to warm up (the user cache, JIT)
+ * and is then measured on the test thread: JDBC statements through a datasource-proxy wrapper,
+ * lazy fetches through Hibernate statistics, and allocated bytes through the thread MX bean.
+ * Summary and insights caches are cleared before every measurement, so their budgets cover a miss.
+ * Runs against an in-process Postgres, no Docker needed.
+ */
+@SpringBootTest(properties = {
+		"client.origin.url=http://localhost:3000",
+		// The listener flushes every local cache once it connects; landing after a warm-up it would empty the users cache
+		"cache.invalidation.enabled=false",
+		"spring.jpa.properties.hibernate.generate_statistics=true",
+		"logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
+@AutoConfigureMockMvc
+@Import(EndpointBudgetTests.StatementCapture.class)
+class EndpointBudgetTests {
+
+	private static final long MB = 1024 * 1024;
+
+	// More than the one-year default summary range; summaryCostDoesNotGrowWithHistory covers full-history loads
+	private static final int HISTORY_DAYS = 500;
+	private static final int YEAR_DAYS = 366;
+	private static final int HABITS_PER_DAY = 10;
+
+	private static final EmbeddedPostgres POSTGRES = startPostgres();
+
+	private record Budget(String endpoint, int maxQueries, long maxAllocatedBytes, IntFunction<RequestBuilder> request) {
+	}
+
+	private record Usage(List<String> statements, long allocatedBytes, long lazyFetches, int status) {
+	}
+
+	@DynamicPropertySource
+	static void datasource(DynamicPropertyRegistry registry) {
+		registry.add("spring.datasource.url", () -> POSTGRES.getJdbcUrl("postgres", "postgres"));
+		registry.add("spring.datasource.username", () -> "postgres");
+		registry.add("spring.datasource.password", () -> "");
+	}
+
+	@AfterAll
+	static void stopPostgres() throws IOException {
+		POSTGRES.close();
+	}
+
+	@Autowired
+	private MockMvc mockMvc;
+	@Autowired
+	private UserService userService;
+	@Autowired
+	private UserRepository userRepository;
+	@Autowired
+	private JwtUtil jwtUtil;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+	@Autowired
+	private CacheManager cacheManager;
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@TestFactory
+	List<DynamicTest> endpointsStayWithinBudget() {
+		User user = signup("budget");
+		seedHistory(user, HISTORY_DAYS);
+		String bearer = "Bearer " + jwtUtil.generateToken(user.getUsername());
+		List<Long> todaysTasks = jdbcTemplate.queryForList(
+				"SELECT id FROM progress_tasks WHERE user_id = ? AND date = ? ORDER BY id",
+				Long.class, user.getId(), Date.valueOf(LocalDate.now()));
+		AtomicInteger created = new AtomicInteger();
+
+		List<Budget> budgets = List.of(
+				// The JWT filter resolves the user from the cache, so this one costs nothing
+				new Budget("GET /api/users/me", 0, 2 * MB,
+						i -> get("/api/users/me").header(HttpHeaders.AUTHORIZATION, bearer)),
+				new Budget("POST /api/auth/signin", 1, 2 * MB,
+						i -> post("/api/auth/signin").contentType(MediaType.APPLICATION_JSON)
+								.content("{\"signIn\":\"budget\",\"password\":\"password123\"}")),
+				new Budget("GET /api/progress/tasks", 1, 2 * MB,
+						i -> get("/api/progress/tasks").header(HttpHeaders.AUTHORIZATION, bearer)),
+				new Budget("GET /api/progress/tasks/search", 1, 2 * MB,
+						i -> get("/api/progress/tasks/search").param("q", "habit 3")
+								.header(HttpHeaders.AUTHORIZATION, bearer)),
+				new Budget("GET /api/progress/changes", 1, 2 * MB,
+						i -> get("/api/progress/changes").param("since", "1")
+								.header(HttpHeaders.AUTHORIZATION, bearer)),
+				// A year of tasks by design
+				new Budget("GET /api/progress/summary", 1, 32 * MB,
+						i -> get("/api/progress/summary").header(HttpHeaders.AUTHORIZATION, bearer)),
+				new Budget("GET /api/progress/insights", 1, 16 * MB,
+						i -> get("/api/progress/insights").header(HttpHeaders.AUTHORIZATION, bearer)),
+				// Writes also publish the summary and insights invalidations (pg_notify)
+				new Budget("POST /api/progress/tasks", 4, 2 * MB,
+						i -> post("/api/progress/tasks").header(HttpHeaders.AUTHORIZATION, bearer)
+								.contentType(MediaType.APPLICATION_JSON)
+								.content("{\"title\":\"New habit " + created.incrementAndGet() + "\"}")),
+				new Budget("PUT /api/progress/tasks/{id}", 5, 2 * MB,
+						i -> put("/api/progress/tasks/" + todaysTasks.get(0)).header(HttpHeaders.AUTHORIZATION, bearer)
+								.contentType(MediaType.APPLICATION_JSON)
+								.content("{\"title\":\"Renamed " + i + "\",\"completed\":true}")),
+				new Budget("DELETE /api/progress/tasks/{id}", 3, 2 * MB,
+						i -> delete("/api/progress/tasks/" + todaysTasks.get(HABITS_PER_DAY - 1 - i))
+								.header(HttpHeaders.AUTHORIZATION, bearer))
+		);
+
+		return budgets.stream()
+				.map(budget -> DynamicTest.dynamicTest(budget.endpoint(), () -> check(budget)))
+				.toList();
+	}
+
+	// The summary's range is a year whatever the history, so six years must cost about what one does
+	@Test
+	void summaryCostDoesNotGrowWithHistory() throws Exception {
+		long oneYear = summaryAllocation("oneyear", YEAR_DAYS);
+		long sixYears = summaryAllocation("sixyears", 6 * YEAR_DAYS);
+
+		assertTrue(sixYears < 2 * oneYear, () -> String.format(
+				"summary allocated %d KB with six years of history, %d KB with one",
+				sixYears / 1024, oneYear / 1024));
+	}
+
+	private long summaryAllocation(String username, int historyDays) throws Exception {
+		User user = signup(username);
+		seedHistory(user, historyDays);
+		RequestBuilder request = get("/api/progress/summary")
+				.header(HttpHeaders.AUTHORIZATION, "Bearer " + jwtUtil.generateToken(username));
+		measure(request);
+		Usage usage = measure(request);
+		assertEquals(200, usage.status());
+		return usage.allocatedBytes();
+	}
+
+	private void check(Budget budget) throws Exception {
+		measure(budget.request().apply(0));
+		Usage usage = measure(budget.request().apply(1));
+
+		assertTrue(usage.status() < 300, budget.endpoint() + " returned " + usage.status());
+		assertTrue(usage.statements().size() <= budget.maxQueries(), () -> String.format(
+				"%s ran %d statements, budget is %d:%n  %s", budget.endpoint(), usage.statements().size(),
+				budget.maxQueries(), String.join("\n  ", usage.statements())));
+		assertEquals(0, usage.lazyFetches(), budget.endpoint() + " initialized lazy associations");
+		assertTrue(usage.allocatedBytes() <= budget.maxAllocatedBytes(), () -> String.format(
+				"%s allocated %d KB, budget is %d KB", budget.endpoint(),
+				usage.allocatedBytes() / 1024, budget.maxAllocatedBytes() / 1024));
+	}
+
+	private Usage measure(RequestBuilder request) throws Exception {
+		cacheManager.getCache(CacheConfig.SUMMARIES).clear();
+		cacheManager.getCache(CacheConfig.INSIGHTS).clear();
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+		StatementRecorder.start();
+		long before = threads.getCurrentThreadAllocatedBytes();
+		MvcResult result = mockMvc.perform(request).andReturn();
+		long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+		List<String> statements = StatementRecorder.stop();
+
+		long lazyFetches = statistics.getEntityFetchCount() + statistics.getCollectionFetchCount();
+		return new Usage(statements, allocated, lazyFetches, result.getResponse().getStatus());
+	}
+
+	private User signup(String username) {
+		SignupRequest request = new SignupRequest();
+		request.setEmail(username + "@example.com");
+		request.setUsername(username);
+		request.setPassword("password123");
+		userService.signup(request);
+		return userRepository.findByUsername(username).orElseThrow();
+	}
+
+	// Day 0 is today; titles repeat every day like real habits
+	private void seedHistory(User user, int days) {
+		List<Object[]> rows = new ArrayList<>();
+		LocalDate today = LocalDate.now();
+		for (int day = 0; day < days; day++) {
+			for (int habit = 0; habit < HABITS_PER_DAY; habit++) {
+				rows.add(new Object[]{"Habit " + habit, "Daily habit number " + habit,
+						(day + habit) % 3 == 0, Date.valueOf(today.minusDays(day)), user.getId()});
+			}
+		}
+		jdbcTemplate.batchUpdate("INSERT INTO progress_tasks (title, description, completed, date, user_id) " +
+				"VALUES (?, ?, ?, ?, ?)", rows);
+	}
+
+	private static EmbeddedPostgres startPostgres() {
+		try {
+			return EmbeddedPostgres.start();
+		} catch (IOException e) {
+			throw new IllegalStateException("Could not start embedded Postgres", e);
+		}
+	}
+
+	// Collects the statements the current thread runs between start() and stop()
+	static final class StatementRecorder implements QueryExecutionListener {
+
+		private static final ThreadLocal<List<String>> CAPTURED = new ThreadLocal<>();
+
+		static void start() {
+			CAPTURED.set(new ArrayList<>());
+		}
+
+		static List<String> stop() {
+			List<String> statements = CAPTURED.get();
+			CAPTURED.remove();
+			return statements;
+		}
+
+		@Override
+		public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+		}
+
+		@Override
+		public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+			List<String> statements = CAPTURED.get();
+			if (statements != null) {
+				queryInfoList.forEach(query -> statements.add(query.getQuery()));
+			}
+		}
+	}
+
+	@TestConfiguration
+	static class StatementCapture {
+
+		@Bean
+		static BeanPostProcessor statementCapturingDataSource() {
+			return new BeanPostProcessor() {
+				@Override
+				public Object postProcessAfterInitialization(Object bean, String beanName) {
+					if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+						return ProxyDataSourceBuilder.create(beanName, dataSource)
+								.listener(new StatementRecorder())
+								.build();
+					}
+					return bean;
+				}
+			};
+		}
+	}
+}
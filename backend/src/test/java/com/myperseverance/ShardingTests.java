@@ -0,0 +1,169 @@
+package com.myperseverance;
+
+import com.myperseverance.config.ShardRegistry;
+import com.myperseverance.config.ShardingProperties;
+import com.myperseverance.dto.SignupRequest;
+import com.myperseverance.model.ProgressTask;
+import com.myperseverance.model.User;
+import com.myperseverance.repository.ProgressTaskRepository;
+import com.myperseverance.repository.UserRepository;
+import com.myperseverance.service.ShardDirectory;
+import com.myperseverance.service.ShardMigrationService;
+import com.myperseverance.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessException;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Primary plus one extra shard, each its own Postgres instance
+@SpringBootTest(properties = {
+		"client.origin.url=http://localhost:3000",
+		"spring.jpa.open-in-view=false",
+		"sharding.enabled=true",
+		"sharding.migration.grace-ms=0"
+})
+@Testcontainers
+class ShardingTests {
+
+	@Container
+	@SuppressWarnings("resource")
+	static PostgreSQLContainer<?> primary = new PostgreSQLContainer<>("postgres:16");
+
+	@Container
+	@SuppressWarnings("resource")
+	static PostgreSQLContainer<?> shard1 = new PostgreSQLContainer<>("postgres:16");
+
+	@DynamicPropertySource
+	static void datasources(DynamicPropertyRegistry registry) {
+		registry.add("spring.datasource.url", primary::getJdbcUrl);
+		registry.add("spring.datasource.username", primary::getUsername);
+		registry.add("spring.datasource.password", primary::getPassword);
+		registry.add("sharding.shards[0].name", () -> "shard-1");
+		registry.add("sharding.shards[0].url", shard1::getJdbcUrl);
+		registry.add("sharding.shards[0].username", shard1::getUsername);
+		registry.add("sharding.shards[0].password", shard1::getPassword);
+	}
+
+	@Autowired
+	private UserService userService;
+	@Autowired
+	private UserRepository userRepository;
+	@Autowired
+	private ProgressTaskRepository taskRepo;
+	@Autowired
+	private ShardDirectory directory;
+	@Autowired
+	private ShardMigrationService migrationService;
+	@Autowired
+	private ShardRegistry registry;
+
+	@Test
+	void userMovesBetweenShardsWithTheirTasks() throws InterruptedException {
+		User user = signup("bob");
+		ProgressTask saved = taskRepo.save(ProgressTask.builder()
+				.title("Morning run").date(LocalDate.of(2025, 1, 1)).user(user).build());
+
+		String source = directory.placementFor(user.getId()).shard();
+		String target = source.equals(ShardingProperties.PRIMARY) ? "shard-1" : ShardingProperties.PRIMARY;
+		assertEquals(1, countOn(source, user));
+
+		migrationService.migrate(user.getId(), target);
+
+		assertEquals(target, directory.placementFor(user.getId()).shard());
+		assertEquals(0, countOn(source, user));
+		assertEquals(1, countOn(target, user));
+		assertEquals(saved.getId(), taskRepo.findByUserAndDate(user, LocalDate.of(2025, 1, 1)).get(0).getId());
+	}
+
+	@Test
+	void taskDeletedAndRecreatedDuringMigrationDoesNotBlockIt() throws InterruptedException {
+		User user = signup("carol");
+		LocalDate day = LocalDate.of(2025, 1, 1);
+		ProgressTask original = taskRepo.save(ProgressTask.builder().title("Run").date(day).user(user).build());
+
+		String source = directory.placementFor(user.getId()).shard();
+		String target = source.equals(ShardingProperties.PRIMARY) ? "shard-1" : ShardingProperties.PRIMARY;
+		// What the bulk copy left behind before the user deleted "Run" and created it again on the source
+		registry.jdbc(target).update("INSERT INTO progress_tasks (id, title, completed, date, user_id) VALUES (?, ?, false, ?, ?)",
+				original.getId(), "Run", day, user.getId());
+		taskRepo.deleteByIdAndUser(original.getId(), user);
+		ProgressTask recreated = taskRepo.save(ProgressTask.builder().title("Run").date(day).user(user).build());
+
+		migrationService.migrate(user.getId(), target);
+
+		assertEquals(target, directory.placementFor(user.getId()).shard());
+		assertEquals(List.of(recreated.getId()), registry.jdbc(target).queryForList(
+				"SELECT id FROM progress_tasks WHERE user_id = ?", Long.class, user.getId()));
+	}
+
+	@Test
+	void writesToTheOldShardAreFencedAfterMigration() throws InterruptedException {
+		User user = signup("dave");
+		taskRepo.save(ProgressTask.builder().title("Run").date(LocalDate.of(2025, 1, 1)).user(user).build());
+		String source = directory.placementFor(user.getId()).shard();
+		String target = source.equals(ShardingProperties.PRIMARY) ? "shard-1" : ShardingProperties.PRIMARY;
+
+		migrationService.migrate(user.getId(), target);
+
+		// What a node still routing the user to the source would run
+		DataAccessException fenced = assertThrows(DataAccessException.class, () -> registry.jdbc(source).update(
+				"INSERT INTO progress_tasks (title, completed, date, user_id) VALUES (?, false, ?, ?)",
+				"Walk", LocalDate.of(2025, 1, 2), user.getId()));
+		assertEquals(ShardMigrationService.FROZEN_SQLSTATE,
+				((SQLException) fenced.getMostSpecificCause()).getSQLState());
+		assertEquals(0, countOn(source, user));
+
+		// The fence doesn't stop the user from moving back
+		migrationService.migrate(user.getId(), source);
+		taskRepo.save(ProgressTask.builder().title("Walk").date(LocalDate.of(2025, 1, 2)).user(user).build());
+		assertEquals(2, countOn(source, user));
+		assertEquals(0, countOn(target, user));
+	}
+
+	@Test
+	void taskIdsDoNotCollideAcrossShards() {
+		User onPrimary = null;
+		User onShard = null;
+		for (int i = 0; onPrimary == null || onShard == null; i++) {
+			User user = signup("user" + i);
+			if (directory.placementFor(user.getId()).shard().equals(ShardingProperties.PRIMARY)) {
+				onPrimary = user;
+			} else {
+				onShard = user;
+			}
+		}
+
+		ProgressTask a = taskRepo.save(ProgressTask.builder().title("A").date(LocalDate.now()).user(onPrimary).build());
+		ProgressTask b = taskRepo.save(ProgressTask.builder().title("B").date(LocalDate.now()).user(onShard).build());
+
+		assertNotEquals(a.getId(), b.getId());
+	}
+
+	private User signup(String username) {
+		SignupRequest request = new SignupRequest();
+		request.setEmail(username + "@example.com");
+		request.setUsername(username);
+		request.setPassword("password123");
+		userService.signup(request);
+		return userRepository.findByUsername(username).orElseThrow();
+	}
+
+	private int countOn(String shard, User user) {
+		Integer count = registry.jdbc(shard).queryForObject(
+				"SELECT COUNT(*) FROM progress_tasks WHERE user_id = ?", Integer.class, user.getId());
+		return count != null ? count : 0;
+	}
+}
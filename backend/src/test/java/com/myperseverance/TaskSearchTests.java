@@ -0,0 +1,178 @@
+package com.myperseverance;
+
+import com.myperseverance.dto.SignupRequest;
+import com.myperseverance.dto.TaskSearchResponse;
+import com.myperseverance.dto.TaskSearchResultDTO;
+import com.myperseverance.model.User;
+import com.myperseverance.repository.UserRepository;
+import com.myperseverance.service.TaskSearchService;
+import com.myperseverance.service.UserService;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Full-text search against a real Postgres: ranking, user scoping, date bounds, paging and the GIN index
+@SpringBootTest(properties = {
+		"client.origin.url=http://localhost:3000",
+		"cache.invalidation.enabled=false"
+})
+class TaskSearchTests {
+
+	private static final LocalDate DAY = LocalDate.of(2025, 3, 10);
+
+	private static final EmbeddedPostgres POSTGRES = startPostgres();
+
+	@DynamicPropertySource
+	static void datasource(DynamicPropertyRegistry registry) {
+		registry.add("spring.datasource.url", () -> POSTGRES.getJdbcUrl("postgres", "postgres"));
+		registry.add("spring.datasource.username", () -> "postgres");
+		registry.add("spring.datasource.password", () -> "");
+	}
+
+	@AfterAll
+	static void stopPostgres() throws IOException {
+		POSTGRES.close();
+	}
+
+	@Autowired
+	private TaskSearchService searchService;
+	@Autowired
+	private UserService userService;
+	@Autowired
+	private UserRepository userRepository;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void titleMatchesRankAboveDescriptionMatches() {
+		User user = signup("ranking");
+		long inDescription = insert(user, "Evening walk", "Stretch afterwards", DAY);
+		long inTitle = insert(user, "Stretch", "Ten minutes", DAY.minusDays(1));
+		insert(user, "Read", "Twenty pages", DAY);
+
+		assertEquals(List.of(inTitle, inDescription), ids(searchService.search(user, "stret", null, null, 0, 10)));
+	}
+
+	@Test
+	void otherUsersTasksAreNotFound() {
+		User alice = signup("scopedalice");
+		User bob = signup("scopedbob");
+		long own = insert(alice, "Morning run", null, DAY);
+		insert(bob, "Morning run", null, DAY);
+
+		assertEquals(List.of(own), ids(searchService.search(alice, "morning run", null, null, 0, 10)));
+	}
+
+	@Test
+	void fromAndToAreInclusiveBounds() {
+		User user = signup("dates");
+		insert(user, "Meditate", null, DAY.minusDays(2));
+		long first = insert(user, "Meditate", "Morning", DAY.minusDays(1));
+		long last = insert(user, "Meditate", "Evening", DAY);
+		insert(user, "Meditate", null, DAY.plusDays(1));
+
+		assertEquals(List.of(last, first),
+				ids(searchService.search(user, "meditate", DAY.minusDays(1), DAY, 0, 10)));
+	}
+
+	@Test
+	void pagesReportWhetherMoreFollow() {
+		User user = signup("paging");
+		for (int day = 0; day < 3; day++) {
+			insert(user, "Journal", null, DAY.minusDays(day));
+		}
+
+		TaskSearchResponse first = searchService.search(user, "journal", null, null, 0, 2);
+		TaskSearchResponse second = searchService.search(user, "journal", null, null, 1, 2);
+
+		assertEquals(2, first.getResults().size());
+		assertTrue(first.isHasNext());
+		assertEquals(1, second.getResults().size());
+		assertFalse(second.isHasNext());
+	}
+
+	@Test
+	void searchUsesTheGinIndex() {
+		User user = signup("indexed");
+		List<Object[]> rows = new ArrayList<>();
+		for (int day = 0; day < 2000; day++) {
+			rows.add(new Object[]{"Habit " + day, Date.valueOf(DAY.minusDays(day)), user.getId()});
+		}
+		jdbcTemplate.batchUpdate("INSERT INTO progress_tasks (title, completed, date, user_id) VALUES (?, false, ?, ?)", rows);
+		insert(user, "Stretch", null, DAY.plusDays(1));
+		jdbcTemplate.execute("ANALYZE progress_tasks");
+
+		String plan = jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+			try (Statement statement = connection.createStatement()) {
+				statement.execute("SET enable_seqscan = off");
+			}
+			// Same statement as ProgressTaskRepository.search
+			try (PreparedStatement explain = connection.prepareStatement(
+					"EXPLAIN SELECT t.* FROM progress_tasks t, to_tsquery('simple', ?) q " +
+							"WHERE t.user_id = ? AND t.search_vector @@ q AND t.date BETWEEN ? AND ? " +
+							"ORDER BY ts_rank(t.search_vector, q) DESC, t.date DESC, t.id DESC LIMIT 11");
+				 Statement reset = connection.createStatement()) {
+				explain.setString(1, "stretch:*");
+				explain.setLong(2, user.getId());
+				explain.setDate(3, Date.valueOf(LocalDate.of(1, 1, 1)));
+				explain.setDate(4, Date.valueOf(LocalDate.of(9999, 12, 31)));
+				StringBuilder lines = new StringBuilder();
+				try (ResultSet rs = explain.executeQuery()) {
+					while (rs.next()) {
+						lines.append(rs.getString(1)).append('\n');
+					}
+				}
+				reset.execute("RESET enable_seqscan");
+				return lines.toString();
+			}
+		});
+
+		assertTrue(plan.contains("idx_progress_tasks_search"), plan);
+	}
+
+	private long insert(User user, String title, String description, LocalDate date) {
+		Long id = jdbcTemplate.queryForObject("INSERT INTO progress_tasks (title, description, completed, date, user_id) " +
+				"VALUES (?, ?, false, ?, ?) RETURNING id", Long.class, title, description, Date.valueOf(date), user.getId());
+		return id != null ? id : -1;
+	}
+
+	private List<Long> ids(TaskSearchResponse response) {
+		return response.getResults().stream().map(TaskSearchResultDTO::getId).toList();
+	}
+
+	private User signup(String username) {
+		SignupRequest request = new SignupRequest();
+		request.setEmail(username + "@example.com");
+		request.setUsername(username);
+		request.setPassword("password123");
+		userService.signup(request);
+		return userRepository.findByUsername(username).orElseThrow();
+	}
+
+	private static EmbeddedPostgres startPostgres() {
+		try {
+			return EmbeddedPostgres.start();
+		} catch (IOException e) {
+			throw new IllegalStateException("Could not start embedded Postgres", e);
+		}
+	}
+}
@@ -0,0 +1,170 @@
+package com.myperseverance;
+
+import com.myperseverance.dto.SignupRequest;
+import com.myperseverance.dto.TaskChangeDTO;
+import com.myperseverance.dto.TaskChangesResponse;
+import com.myperseverance.dto.TaskTombstoneDTO;
+import com.myperseverance.model.User;
+import com.myperseverance.repository.UserRepository;
+import com.myperseverance.service.TaskSyncService;
+import com.myperseverance.service.TombstoneCompactor;
+import com.myperseverance.service.UserService;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Delta sync against a real Postgres: the change-version trigger, tombstones, compaction and concurrent writers
+@SpringBootTest(properties = {
+		"client.origin.url=http://localhost:3000",
+		"cache.invalidation.enabled=false"
+})
+class TaskSyncTests {
+
+	private static final LocalDate DAY = LocalDate.of(2025, 5, 1);
+
+	private static final EmbeddedPostgres POSTGRES = startPostgres();
+
+	@DynamicPropertySource
+	static void datasource(DynamicPropertyRegistry registry) {
+		registry.add("spring.datasource.url", () -> POSTGRES.getJdbcUrl("postgres", "postgres"));
+		registry.add("spring.datasource.username", () -> "postgres");
+		registry.add("spring.datasource.password", () -> "");
+	}
+
+	@AfterAll
+	static void stopPostgres() throws IOException {
+		POSTGRES.close();
+	}
+
+	@Autowired
+	private TaskSyncService syncService;
+	@Autowired
+	private TombstoneCompactor compactor;
+	@Autowired
+	private UserService userService;
+	@Autowired
+	private UserRepository userRepository;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void pagesFollowTheChangeVersions() {
+		User user = signup("pager");
+		long run = insert(user, "Run", DAY);
+		long read = insert(user, "Read", DAY);
+		long walk = insert(user, "Walk", DAY);
+		long since = syncService.changesSince(user, 0, 100).getNextSince();
+		jdbcTemplate.update("UPDATE progress_tasks SET completed = TRUE WHERE id = ?", run);
+		jdbcTemplate.update("DELETE FROM progress_tasks WHERE id = ?", read);
+		jdbcTemplate.update("UPDATE progress_tasks SET title = 'Long walk' WHERE id = ?", walk);
+
+		TaskChangesResponse first = syncService.changesSince(user, since, 2);
+		TaskChangesResponse second = syncService.changesSince(user, first.getNextSince(), 2);
+
+		assertEquals(List.of(run), first.getChanged().stream().map(TaskChangeDTO::getId).toList());
+		assertTrue(first.getChanged().get(0).isCompleted());
+		assertEquals(List.of(read), first.getDeleted().stream().map(TaskTombstoneDTO::getId).toList());
+		assertTrue(first.isHasMore());
+		assertEquals(List.of("Long walk"), second.getChanged().stream().map(TaskChangeDTO::getTitle).toList());
+		assertEquals(DAY, second.getChanged().get(0).getDate());
+		assertFalse(second.isHasMore());
+		assertEquals(since + 3, second.getNextSince());
+	}
+
+	@Test
+	void clientsBehindCompactedTombstonesMustReset() {
+		User user = signup("compacted");
+		long gone = insert(user, "Run", DAY);
+		insert(user, "Read", DAY);
+		long before = syncService.changesSince(user, 0, 100).getNextSince();
+		jdbcTemplate.update("DELETE FROM progress_tasks WHERE id = ?", gone);
+		jdbcTemplate.update("UPDATE progress_task_tombstones SET deleted_at = now() - interval '365 days' WHERE task_id = ?", gone);
+
+		compactor.compact();
+
+		assertTrue(syncService.changesSince(user, before, 100).isResetRequired());
+		TaskChangesResponse fresh = syncService.changesSince(user, 0, 100);
+		assertFalse(fresh.isResetRequired());
+		assertEquals(List.of("Read"), fresh.getChanged().stream().map(TaskChangeDTO::getTitle).toList());
+		assertTrue(fresh.getDeleted().isEmpty());
+	}
+
+	@Test
+	void syncingDuringWritesEndsInTheSameState() throws Exception {
+		User user = signup("racer");
+		CompletableFuture<Void> writes = CompletableFuture.runAsync(() -> {
+			for (int i = 0; i < 300; i++) {
+				long id = insert(user, "Habit " + i, DAY.plusDays(i));
+				if (i % 3 == 0) {
+					jdbcTemplate.update("UPDATE progress_tasks SET title = ? WHERE id = ?", "Renamed " + i, id);
+				}
+				if (i % 4 == 0) {
+					jdbcTemplate.update("DELETE FROM progress_tasks WHERE id = ?", id);
+				}
+			}
+		});
+
+		Map<Long, String> client = new HashMap<>();
+		long since = 0;
+		boolean writing = true;
+		boolean hasMore = true;
+		while (writing || hasMore) {
+			// Checked before the page is read, so the last page read after the writer finished sees every write
+			writing = !writes.isDone();
+			TaskChangesResponse page = syncService.changesSince(user, since, 7);
+			page.getChanged().forEach(change -> client.put(change.getId(), change.getTitle()));
+			page.getDeleted().forEach(deletion -> client.remove(deletion.getId()));
+			since = page.getNextSince();
+			hasMore = page.isHasMore();
+		}
+		writes.get(10, TimeUnit.SECONDS);
+
+		Map<Long, String> server = new HashMap<>();
+		for (Map<String, Object> row : jdbcTemplate.queryForList(
+				"SELECT id, title FROM progress_tasks WHERE user_id = ?", user.getId())) {
+			server.put((Long) row.get("id"), (String) row.get("title"));
+		}
+		assertEquals(server, client);
+	}
+
+	private long insert(User user, String title, LocalDate date) {
+		Long id = jdbcTemplate.queryForObject("INSERT INTO progress_tasks (title, completed, date, user_id) " +
+				"VALUES (?, false, ?, ?) RETURNING id", Long.class, title, Date.valueOf(date), user.getId());
+		return id != null ? id : -1;
+	}
+
+	private User signup(String username) {
+		SignupRequest request = new SignupRequest();
+		request.setEmail(username + "@example.com");
+		request.setUsername(username);
+		request.setPassword("password123");
+		userService.signup(request);
+		return userRepository.findByUsername(username).orElseThrow();
+	}
+
+	private static EmbeddedPostgres startPostgres() {
+		try {
+			return EmbeddedPostgres.start();
+		} catch (IOException e) {
+			throw new IllegalStateException("Could not start embedded Postgres", e);
+		}
+	}
+}
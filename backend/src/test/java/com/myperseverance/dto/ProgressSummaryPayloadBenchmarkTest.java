@@ -0,0 +1,124 @@
+package com.myperseverance.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Payload size and serialization time of a one-year summary: default JSON vs compact JSON vs compact CBOR.
+// Timings only run with -Pbenchmark.
+class ProgressSummaryPayloadBenchmarkTest {
+
+    private static final int ITERATIONS = 500;
+
+    private final ObjectMapper jsonMapper = new ObjectMapper()
+            .findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final CBORMapper cborMapper = new CBORMapper();
+
+    @Test
+    void compactPayloadIsSmallerThanDefault() throws IOException {
+        List<ProgressSummaryDTO> summaries = oneYearOfSummaries();
+        CompactProgressSummaryDTO compact = CompactProgressSummaryDTO.from(summaries);
+
+        byte[] json = jsonMapper.writeValueAsBytes(summaries);
+        byte[] compactJson = jsonMapper.writeValueAsBytes(compact);
+        byte[] compactCbor = cborMapper.writeValueAsBytes(compact);
+
+        assertTrue(compactJson.length < json.length);
+        assertTrue(compactCbor.length < compactJson.length);
+        assertTrue(gzip(compactJson).length < gzip(json).length);
+    }
+
+    @Test
+    @Tag("benchmark")
+    void serializationTimes() throws IOException {
+        List<ProgressSummaryDTO> summaries = oneYearOfSummaries();
+        CompactProgressSummaryDTO compact = CompactProgressSummaryDTO.from(summaries);
+
+        report("default json", jsonMapper.writeValueAsBytes(summaries), () -> jsonMapper.writeValueAsBytes(summaries));
+        report("compact json", jsonMapper.writeValueAsBytes(compact),
+                () -> jsonMapper.writeValueAsBytes(CompactProgressSummaryDTO.from(summaries)));
+        report("compact cbor", cborMapper.writeValueAsBytes(compact),
+                () -> cborMapper.writeValueAsBytes(CompactProgressSummaryDTO.from(summaries)));
+    }
+
+    @Test
+    void compactPayloadRoundTrips() throws IOException {
+        List<ProgressSummaryDTO> summaries = oneYearOfSummaries();
+        CompactProgressSummaryDTO compact = CompactProgressSummaryDTO.from(summaries);
+
+        CompactProgressSummaryDTO decoded = cborMapper.readValue(
+                cborMapper.writeValueAsBytes(compact), CompactProgressSummaryDTO.class);
+
+        assertArrayEquals(compact.getEpochDays(), decoded.getEpochDays());
+        assertArrayEquals(compact.getTitleIds(), decoded.getTitleIds());
+        assertEquals(compact.getTitles(), decoded.getTitles());
+
+        ProgressSummaryDTO last = summaries.get(summaries.size() - 1);
+        int day = summaries.size() - 1;
+        assertEquals(last.getDate().toEpochDay(), decoded.getEpochDays()[day]);
+        assertEquals(last.getCompletedTasks(), decoded.getCompletedTasks()[day]);
+        for (int i = decoded.getTitleOffsets()[day], j = 0; i < decoded.getTitleOffsets()[day + 1]; i++, j++) {
+            assertEquals(last.getTaskTitles().get(j), decoded.getTitles().get(decoded.getTitleIds()[i]));
+        }
+    }
+
+    private List<ProgressSummaryDTO> oneYearOfSummaries() {
+        String[] habits = {"Morning run", "Read 30 pages", "Meditate", "Practice guitar", "Write journal", "Study Spanish"};
+        LocalDate start = LocalDate.of(2024, 1, 1);
+        List<ProgressSummaryDTO> summaries = new ArrayList<>();
+
+        for (int day = 0; day < 365; day++) {
+            ProgressSummaryDTO summary = new ProgressSummaryDTO(start.plusDays(day), 0, 0, new ArrayList<>());
+            for (int h = 0; h < habits.length; h++) {
+                summary.incrementTotal();
+                if ((day + h) % 3 != 0) {
+                    summary.incrementCompleted();
+                    summary.addTaskTitle(habits[h]);
+                }
+            }
+            summaries.add(summary);
+        }
+        return summaries;
+    }
+
+    private void report(String label, byte[] payload, Serializer serializer) throws IOException {
+        for (int i = 0; i < ITERATIONS; i++) {
+            serializer.serialize();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            serializer.serialize();
+        }
+        long micros = (System.nanoTime() - start) / ITERATIONS / 1000;
+
+        System.out.printf("%-13s %7d bytes, %6d bytes gzip, %5d us/serialize%n",
+                label, payload.length, gzip(payload).length, micros);
+    }
+
+    private byte[] gzip(byte[] payload) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(payload);
+        }
+        return out.toByteArray();
+    }
+
+    @FunctionalInterface
+    private interface Serializer {
+        byte[] serialize() throws IOException;
+    }
+}
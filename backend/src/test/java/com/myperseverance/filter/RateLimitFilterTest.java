@@ -0,0 +1,103 @@
+package com.myperseverance.filter;
+
+import com.myperseverance.util.RateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.options;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class RateLimitFilterTest {
+
+    // One request per budget; AUTH refills a token every 5s
+    private final RateLimiter rateLimiter = new RateLimiter(new SimpleMeterRegistry(),
+            1, 0.2, 1, 1, 1, 1, 1, 1, 100_000, 300_000);
+    private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new AnyPathController())
+            .addFilters(new RateLimitFilter(rateLimiter))
+            .build();
+
+    @RestController
+    static class AnyPathController {
+        @RequestMapping("/**")
+        public String ok() {
+            return "ok";
+        }
+    }
+
+    @AfterEach
+    void clearAuthentication() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void exhaustedBudgetAnswers429WithRetryAfter() throws Exception {
+        mockMvc.perform(from("10.0.0.1", post("/api/auth/signin"))).andExpect(status().isOk());
+
+        mockMvc.perform(from("10.0.0.1", post("/api/auth/signin")))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "5"));
+    }
+
+    @Test
+    void authProbesHaveTheirOwnBudget() throws Exception {
+        mockMvc.perform(from("10.0.0.1", post("/api/auth/signin"))).andExpect(status().isOk());
+        mockMvc.perform(from("10.0.0.1", post("/api/auth/signup"))).andExpect(status().isTooManyRequests());
+
+        mockMvc.perform(from("10.0.0.1", post("/api/auth/refresh"))).andExpect(status().isOk());
+        mockMvc.perform(from("10.0.0.1", get("/api/auth/check-username"))).andExpect(status().isTooManyRequests());
+    }
+
+    @Test
+    void authEndpointsAreLimitedPerIpEvenWhenAuthenticated() throws Exception {
+        signIn("alice");
+        mockMvc.perform(from("10.0.0.1", post("/api/auth/signin"))).andExpect(status().isOk());
+        signIn("bob");
+        mockMvc.perform(from("10.0.0.1", post("/api/auth/signin"))).andExpect(status().isTooManyRequests());
+
+        mockMvc.perform(from("10.0.0.2", post("/api/auth/signin"))).andExpect(status().isOk());
+    }
+
+    @Test
+    void authenticatedRequestsAreLimitedPerUserAndClass() throws Exception {
+        signIn("alice");
+        mockMvc.perform(from("10.0.0.1", get("/api/progress/summary"))).andExpect(status().isOk());
+        mockMvc.perform(from("10.0.0.2", get("/api/progress/insights"))).andExpect(status().isTooManyRequests());
+        mockMvc.perform(from("10.0.0.1", get("/api/progress/tasks"))).andExpect(status().isOk());
+
+        signIn("bob");
+        mockMvc.perform(from("10.0.0.1", get("/api/progress/summary"))).andExpect(status().isOk());
+    }
+
+    @Test
+    void preflightRequestsAreNotLimited() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(from("10.0.0.1", options("/api/auth/signin"))).andExpect(status().isOk());
+        }
+    }
+
+    private void signIn(String username) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(username, null, List.of()));
+    }
+
+    private MockHttpServletRequestBuilder from(String ip, MockHttpServletRequestBuilder request) {
+        return request.with(r -> {
+            r.setRemoteAddr(ip);
+            return r;
+        });
+    }
+}
@@ -0,0 +1,75 @@
+package com.myperseverance.service;
+
+import com.myperseverance.MyperseveranceApplication;
+import com.myperseverance.dto.SignupRequest;
+import com.myperseverance.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Two application contexts sharing one database, standing in for two backend nodes
+@Testcontainers
+class ClusterCacheInvalidationTests {
+
+	@Container
+	@SuppressWarnings("resource")
+	static PostgreSQLContainer<?> postgresqlContainer = new PostgreSQLContainer<>("postgres:16")
+			.withDatabaseName("test-db")
+			.withUsername("testuser")
+			.withPassword("testpass");
+
+	private ConfigurableApplicationContext nodeA;
+	private ConfigurableApplicationContext nodeB;
+
+	@BeforeEach
+	void startNodes() {
+		nodeA = startNode();
+		nodeB = startNode();
+		await().atMost(Duration.ofSeconds(10)).until(() ->
+				nodeA.getBean(ClusterInvalidationListener.class).isListening()
+						&& nodeB.getBean(ClusterInvalidationListener.class).isListening());
+	}
+
+	@AfterEach
+	void stopNodes() {
+		nodeA.close();
+		nodeB.close();
+	}
+
+	@Test
+	void signupOnOneNodeEvictsCachedMissOnTheOther() {
+		UserRepository repoB = nodeB.getBean(UserRepository.class);
+		assertTrue(repoB.findByUsername("alice").isEmpty()); // caches the miss on node B
+
+		SignupRequest request = new SignupRequest();
+		request.setEmail("alice@example.com");
+		request.setUsername("alice");
+		request.setPassword("password123");
+		assertTrue(nodeA.getBean(UserService.class).signup(request));
+
+		await().atMost(Duration.ofSeconds(5)).until(() -> repoB.findByUsername("alice").isPresent());
+	}
+
+	private ConfigurableApplicationContext startNode() {
+		return new SpringApplicationBuilder(MyperseveranceApplication.class)
+				.properties(
+						"server.port=0",
+						"spring.datasource.url=" + postgresqlContainer.getJdbcUrl(),
+						"spring.datasource.username=" + postgresqlContainer.getUsername(),
+						"spring.datasource.password=" + postgresqlContainer.getPassword(),
+						"client.origin.url=http://localhost:3000",
+						"spring.jpa.open-in-view=false",
+						"spring.devtools.restart.enabled=false")
+				.run();
+	}
+}
@@ -0,0 +1,90 @@
+package com.myperseverance.service;
+
+import com.myperseverance.dto.HabitInsightsDTO;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Aggregation time over 150k tasks for one user: sequential scan vs fork-join reduction.
+// Timings only run with -Pbenchmark.
+class HabitInsightsBenchmarkTest {
+
+    private static final int TASKS = 150_000;
+    private static final int ITERATIONS = 50;
+
+    @Test
+    void parallelAggregationMatchesSequential() {
+        long today = LocalDate.of(2025, 6, 30).toEpochDay();
+        UserTaskColumns columns = history(today);
+
+        InsightsAggregator.Totals sequential = InsightsAggregator.aggregateSequential(columns, today);
+        InsightsAggregator.Totals parallel = InsightsAggregator.aggregate(columns, today);
+
+        assertArrayEquals(sequential.weekdayTotal, parallel.weekdayTotal);
+        assertArrayEquals(sequential.weekdayCompleted, parallel.weekdayCompleted);
+        assertArrayEquals(sequential.titleCompleted, parallel.titleCompleted);
+        assertArrayEquals(sequential.windowTotal, parallel.windowTotal);
+        assertArrayEquals(sequential.windowCompleted, parallel.windowCompleted);
+
+        HabitInsightsDTO insights = HabitInsightsService.toDto(parallel, columns.titles());
+        assertEquals(TASKS, insights.getTotalTasks());
+        assertEquals(40, insights.getByTitle().size());
+    }
+
+    @Test
+    @Tag("benchmark")
+    void aggregationTimes() {
+        long today = LocalDate.of(2025, 6, 30).toEpochDay();
+        UserTaskColumns columns = history(today);
+
+        System.out.printf("sequential: %d us, parallel: %d us (%d tasks)%n",
+                time(() -> InsightsAggregator.aggregateSequential(columns, today)),
+                time(() -> InsightsAggregator.aggregate(columns, today)),
+                TASKS);
+    }
+
+    @Test
+    void columnsStayConsistentUnderUpdates() {
+        UserTaskColumns columns = new UserTaskColumns();
+        columns.upsert(3, 100, "Read", false);
+        columns.upsert(1, 101, "Run", true);
+        columns.upsert(2, 102, "Read", true);
+
+        columns.remove(1);
+        columns.setCompleted(3, true);
+        columns.upsert(2, 102, "Meditate", false);
+
+        InsightsAggregator.Totals totals = InsightsAggregator.aggregateSequential(columns, 200);
+        assertEquals(2, columns.size());
+        assertArrayEquals(new int[]{1, 0, 1}, totals.titleTotal); // Read, Run, Meditate
+        assertArrayEquals(new int[]{1, 0, 0}, totals.titleCompleted);
+    }
+
+    private UserTaskColumns history(long today) {
+        String[] habits = new String[40];
+        for (int i = 0; i < habits.length; i++) {
+            habits[i] = "Habit " + i;
+        }
+        UserTaskColumns columns = new UserTaskColumns();
+        for (int id = 0; id < TASKS; id++) {
+            long day = today - (TASKS - id) / habits.length;
+            columns.upsert(id + 1, day, habits[id % habits.length], (id * 31 + day) % 3 != 0);
+        }
+        return columns;
+    }
+
+    private long time(Runnable aggregation) {
+        for (int i = 0; i < ITERATIONS; i++) {
+            aggregation.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            aggregation.run();
+        }
+        return (System.nanoTime() - start) / ITERATIONS / 1000;
+    }
+}
@@ -0,0 +1,49 @@
+package com.myperseverance.service;
+
+import com.myperseverance.config.CacheConfig;
+import com.myperseverance.model.ProgressTask;
+import com.myperseverance.model.User;
+import com.myperseverance.repository.ProgressTaskRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.CacheManager;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class HabitInsightsServiceTest {
+
+    private final ProgressTaskRepository taskRepo = mock(ProgressTaskRepository.class);
+    private final ClusterCacheInvalidator cacheInvalidator = mock(ClusterCacheInvalidator.class);
+    private final CacheManager cacheManager = new CacheConfig().cacheManager(
+            "maximumSize=100", "maximumSize=100", "maximumSize=100", "maximumSize=100");
+    private final HabitInsightsService service = new HabitInsightsService(taskRepo, cacheManager, cacheInvalidator,
+            new TaskCompletionBuffer(taskRepo, cacheInvalidator, false));
+    private final User alice = User.builder().id(7L).username("alice").build();
+
+    @Test
+    void writeCommittedDuringLoadIsNotLost() throws Exception {
+        LocalDate today = LocalDate.now();
+        ProgressTask run = ProgressTask.builder().id(1L).title("Run").date(today).completed(true).user(alice).build();
+        AtomicReference<CompletableFuture<Void>> write = new AtomicReference<>();
+        when(taskRepo.findInsightRowsByUser(alice))
+                .thenAnswer(invocation -> {
+                    // The task is saved after this query read the history, while the load is still running
+                    write.set(CompletableFuture.runAsync(() -> service.onTaskSaved(alice, run)));
+                    Thread.sleep(100);
+                    return List.of();
+                })
+                .thenReturn(List.<Object[]>of(new Object[]{1L, today, "Run", true}));
+
+        service.getInsights(alice);
+        write.get().get(5, TimeUnit.SECONDS);
+
+        assertEquals(1, service.getInsights(alice).getTotalTasks());
+    }
+}
@@ -0,0 +1,102 @@
+package com.myperseverance.service;
+
+import com.myperseverance.model.ProgressTask;
+import com.myperseverance.model.User;
+import com.myperseverance.repository.ProgressTaskRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class TaskCompletionBufferTest {
+
+    private final ProgressTaskRepository taskRepo = mock(ProgressTaskRepository.class);
+    private final ClusterCacheInvalidator cacheInvalidator = mock(ClusterCacheInvalidator.class);
+    private final TaskCompletionBuffer buffer = new TaskCompletionBuffer(taskRepo, cacheInvalidator, true);
+    private final User alice = User.builder().id(7L).username("alice").build();
+
+    @Test
+    void repeatedTogglesAreCoalescedIntoFinalState() {
+        buffer.record(1L, alice, true);
+        buffer.record(1L, alice, false);
+        buffer.record(1L, alice, true);
+        buffer.record(2L, alice, false);
+
+        buffer.flush();
+
+        verify(taskRepo).updateCompleted(alice, List.of(1L), true);
+        verify(taskRepo).updateCompleted(alice, List.of(2L), false);
+        assertEquals(0, buffer.pendingCount());
+    }
+
+    @Test
+    void readsSeeBufferedState() {
+        buffer.record(1L, alice, true);
+
+        ProgressTask task = ProgressTask.builder().id(1L).completed(false).build();
+
+        assertTrue(buffer.applyPending(task).isCompleted());
+    }
+
+    @Test
+    void failedFlushKeepsEntriesForRetry() {
+        doThrow(new RuntimeException("db down")).when(taskRepo).updateCompleted(any(), any(), anyBoolean());
+        buffer.record(1L, alice, true);
+
+        buffer.flush();
+
+        assertEquals(1, buffer.pendingCount());
+        verify(cacheInvalidator, never()).invalidate(any(), eq("alice"));
+    }
+
+    @Test
+    void discardedToggleIsNotFlushed() {
+        buffer.record(1L, alice, true);
+        buffer.discard(1L);
+
+        buffer.flush();
+
+        verify(taskRepo, never()).updateCompleted(any(), any(), anyBoolean());
+        assertFalse(buffer.pendingCount() > 0);
+    }
+
+    @Test
+    void discardWaitsForFlushInProgress() throws Exception {
+        CountDownLatch updating = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            updating.countDown();
+            release.await();
+            return 1;
+        }).when(taskRepo).updateCompleted(any(), any(), anyBoolean());
+        buffer.record(1L, alice, true);
+
+        Thread flusher = new Thread(buffer::flush);
+        flusher.start();
+        updating.await();
+        CompletableFuture<Void> discard = CompletableFuture.runAsync(() -> buffer.discard(1L));
+
+        // A direct write must not start until the stale batch has been written
+        assertThrows(TimeoutException.class, () -> discard.get(100, TimeUnit.MILLISECONDS));
+        release.countDown();
+        discard.get(5, TimeUnit.SECONDS);
+        flusher.join();
+        assertEquals(0, buffer.pendingCount());
+    }
+}
@@ -0,0 +1,24 @@
+package com.myperseverance.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TaskSearchServiceTest {
+
+    @Test
+    void lastWordIsPrefixMatched() {
+        assertEquals("morning & ru:*", TaskSearchService.toTsQuery("Morning ru"));
+    }
+
+    @Test
+    void tsqueryOperatorsAreStripped() {
+        assertEquals("read & pages:*", TaskSearchService.toTsQuery("read | !pages & ("));
+    }
+
+    @Test
+    void blankInputGivesEmptyQuery() {
+        assertEquals("", TaskSearchService.toTsQuery("  ?! "));
+        assertEquals("", TaskSearchService.toTsQuery(null));
+    }
+}
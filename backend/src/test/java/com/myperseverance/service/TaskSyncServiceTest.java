@@ -0,0 +1,78 @@
+package com.myperseverance.service;
+
+import com.myperseverance.dto.TaskChangesResponse;
+import com.myperseverance.model.User;
+import com.myperseverance.repository.ProgressTaskRepository;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TaskSyncServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 5, 1);
+
+    private final ProgressTaskRepository taskRepo = mock(ProgressTaskRepository.class);
+    private final TaskCompletionBuffer completionBuffer =
+            new TaskCompletionBuffer(taskRepo, mock(ClusterCacheInvalidator.class), false);
+    private final TaskSyncService syncService = new TaskSyncService(taskRepo, completionBuffer);
+    private final User alice = User.builder().id(7L).username("alice").build();
+
+    @Test
+    void rowsAreSplitIntoChangesAndDeletionsAndPaged() {
+        when(taskRepo.findChangesSince(alice, 10, 4)).thenReturn(List.of(
+                task(1L, 11), deletion(3L, 12), deletion(4L, 13), task(2L, 14)));
+
+        TaskChangesResponse page = syncService.changesSince(alice, 10, 3);
+
+        assertEquals(List.of(1L), page.getChanged().stream().map(c -> c.getId()).toList());
+        assertEquals(DAY, page.getChanged().get(0).getDate());
+        assertEquals(List.of(3L, 4L), page.getDeleted().stream().map(d -> d.getId()).toList());
+        assertEquals(13, page.getNextSince());
+        assertTrue(page.isHasMore());
+        assertFalse(page.isResetRequired());
+    }
+
+    @Test
+    void nothingChangedKeepsTheClientsVersion() {
+        when(taskRepo.findChangesSince(alice, 20, 101))
+                .thenReturn(List.<Object[]>of(new Object[]{null, null, null, null, null, null, null, 0L}));
+
+        TaskChangesResponse page = syncService.changesSince(alice, 20, 100);
+
+        assertTrue(page.getChanged().isEmpty());
+        assertTrue(page.getDeleted().isEmpty());
+        assertEquals(20, page.getNextSince());
+        assertFalse(page.isHasMore());
+    }
+
+    @Test
+    void clientsBehindCompactionMustReset() {
+        when(taskRepo.findChangesSince(alice, 20, 101)).thenReturn(List.<Object[]>of(withCompaction(task(1L, 60), 50)));
+
+        TaskChangesResponse page = syncService.changesSince(alice, 20, 100);
+
+        assertTrue(page.isResetRequired());
+        assertTrue(page.getChanged().isEmpty());
+    }
+
+    private Object[] task(Long id, long version) {
+        return new Object[]{"T", id, "t" + id, null, false, Date.valueOf(DAY), version, 0L};
+    }
+
+    private Object[] deletion(Long id, long version) {
+        return new Object[]{"D", id, null, null, null, null, version, 0L};
+    }
+
+    private Object[] withCompaction(Object[] row, long compactedVersion) {
+        row[7] = compactedVersion;
+        return row;
+    }
+}
@@ -0,0 +1,70 @@
+package com.myperseverance.util;
+
+import com.myperseverance.util.RateLimiter.EndpointClass;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateLimiterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void budgetsArePerClassAndKey() {
+        RateLimiter limiter = limiter(100_000, 300_000);
+
+        assertEquals(0, limiter.tryAcquire(EndpointClass.AUTH, "ip:10.0.0.1"));
+        assertEquals(0, limiter.tryAcquire(EndpointClass.AUTH, "ip:10.0.0.1"));
+        // Two tokens at one every 5s
+        assertTrue(limiter.tryAcquire(EndpointClass.AUTH, "ip:10.0.0.1") > 4000);
+
+        assertEquals(0, limiter.tryAcquire(EndpointClass.AUTH, "ip:10.0.0.2"));
+        assertEquals(0, limiter.tryAcquire(EndpointClass.AUTH_PROBE, "ip:10.0.0.1"));
+        assertEquals(1, rejected(EndpointClass.AUTH));
+    }
+
+    @Test
+    void fullStripesFallBackToTheOverflowBucket() {
+        // One bucket per stripe, so most of the keys below share the overflow bucket
+        RateLimiter limiter = limiter(16, 300_000);
+
+        int admitted = 0;
+        for (int i = 0; i < 100; i++) {
+            if (limiter.tryAcquire(EndpointClass.SUMMARY, "user:u" + i) == 0) {
+                admitted++;
+            }
+        }
+
+        assertTrue(limiter.bucketCount() <= 16);
+        // One token per own bucket plus the overflow bucket's
+        assertTrue(admitted <= limiter.bucketCount() + 1, "admitted " + admitted);
+        assertEquals(100 - admitted, rejected(EndpointClass.SUMMARY));
+    }
+
+    @Test
+    void onlyRefilledBucketsAreEvicted() throws InterruptedException {
+        RateLimiter limiter = limiter(100_000, 0);
+        limiter.tryAcquire(EndpointClass.DEFAULT, "user:alice");
+        limiter.tryAcquire(EndpointClass.AUTH, "ip:10.0.0.1");
+        limiter.tryAcquire(EndpointClass.AUTH, "ip:10.0.0.1");
+
+        Thread.sleep(20);
+        limiter.evictIdleBuckets();
+
+        // DEFAULT refills a token per ms; the emptied AUTH bucket is kept, not replaced by a full one
+        assertEquals(1, limiter.bucketCount());
+        assertTrue(limiter.tryAcquire(EndpointClass.AUTH, "ip:10.0.0.1") > 0);
+    }
+
+    private RateLimiter limiter(int maxBuckets, long idleEvictionMs) {
+        return new RateLimiter(meterRegistry, 2, 0.2, 5, 1, 1, 0.01, 10, 1000, maxBuckets, idleEvictionMs);
+    }
+
+    private double rejected(EndpointClass endpointClass) {
+        return meterRegistry.get("admission.requests")
+                .tag("class", endpointClass.name().toLowerCase()).tag("outcome", "rejected")
+                .counter().count();
+    }
+}
@@ -0,0 +1,42 @@
+package com.myperseverance.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketTest {
+
+    @Test
+    void allowsBurstUpToCapacityThenReportsWait() {
+        TokenBucket bucket = new TokenBucket(3, 1, 0);
+
+        assertEquals(0, bucket.tryConsume(0));
+        assertEquals(0, bucket.tryConsume(0));
+        assertEquals(0, bucket.tryConsume(0));
+        assertEquals(1000, bucket.tryConsume(0));
+    }
+
+    @Test
+    void slowRefillDoesNotLoseFractions() {
+        TokenBucket bucket = new TokenBucket(1, 0.2, 0); // one token every 5s
+        assertEquals(0, bucket.tryConsume(0));
+
+        // Many rejected attempts in between must not push the next token further out
+        for (long t = 1; t < 5000; t += 7) {
+            assertTrue(bucket.tryConsume(t) > 0);
+        }
+        assertEquals(0, bucket.tryConsume(5000));
+    }
+
+    @Test
+    void onlyFullUnusedBucketsAreIdle() {
+        TokenBucket bucket = new TokenBucket(2, 1, 0);
+        bucket.tryConsume(0);
+        bucket.tryConsume(0);
+
+        assertFalse(bucket.isIdle(1000, 1000));
+        assertTrue(bucket.isIdle(2000, 1000));
+    }
+}